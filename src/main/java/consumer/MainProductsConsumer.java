@@ -6,6 +6,8 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationListener;
 
 import java.util.List;
 
@@ -18,6 +20,12 @@ public class MainProductsConsumer implements CommandLineRunner {
     public static void main(String[] args) {
         SpringApplication springApplication = new SpringApplication(MainProductsConsumer.class);
         springApplication.setWebApplicationType(WebApplicationType.NONE);
+        // Training runs for the AppCDS archive stop as soon as the application has started
+        springApplication.addListeners((ApplicationListener<ApplicationStartedEvent>) event -> {
+            if (event.getApplicationContext().getEnvironment().getProperty("startup.exit-after-start", Boolean.class, false)) {
+                System.exit(SpringApplication.exit(event.getApplicationContext()));
+            }
+        });
         springApplication.run(args);
     }
 
@@ -0,0 +1,40 @@
+package consumer.cache;
+
+public class CacheStats {
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long size;
+
+    public CacheStats(long hitCount, long missCount, long evictionCount, long size) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.size = size;
+    }
+
+    public long getHitCount() {
+        return this.hitCount;
+    }
+
+    public long getMissCount() {
+        return this.missCount;
+    }
+
+    public long getEvictionCount() {
+        return this.evictionCount;
+    }
+
+    public long getSize() {
+        return this.size;
+    }
+
+    public double getHitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    public String toString() {
+        return "CacheStats(hitCount=" + this.getHitCount() + ", missCount=" + this.getMissCount() + ", evictionCount=" + this.getEvictionCount() + ", size=" + this.getSize() + ")";
+    }
+}
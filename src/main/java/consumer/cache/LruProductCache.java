@@ -0,0 +1,146 @@
+package consumer.cache;
+
+import consumer.contracts.ProductResponse;
+import consumer.exceptions.InvalidProductIdException;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Size-bounded LRU cache of products with a per-entry time to live.
+ * <p>
+ * Ids the provider reported as invalid are cached as well, with their own (usually shorter) time to live,
+ * so repeated lookups of a bad id do not reach the provider every time. An id reported as invalid by a load
+ * that overlapped an {@link #invalidate}, of any id, is not cached: the product may have been created meanwhile.
+ */
+public class LruProductCache implements ProductCache {
+    private final int maxSize;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final LongSupplier nanoClock;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private final LinkedHashMap<UUID, Entry> entries;
+    private long invalidations;
+
+    public LruProductCache(int maxSize, Duration ttl, Duration negativeTtl) {
+        this(maxSize, ttl, negativeTtl, System::nanoTime);
+    }
+
+    LruProductCache(int maxSize, Duration ttl, Duration negativeTtl, LongSupplier nanoClock) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.negativeTtlNanos = negativeTtl.toNanos();
+        this.nanoClock = nanoClock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Entry> eldest) {
+                if (size() > LruProductCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public ProductResponse get(UUID id, ProductLoader loader) throws InvalidProductIdException {
+        Entry entry = lookup(id);
+        if (entry != null) {
+            hits.increment();
+            if (entry.product == null) {
+                throw new InvalidProductIdException(id);
+            }
+
+            return entry.product;
+        }
+
+        misses.increment();
+        long invalidationsBefore;
+        synchronized (entries) {
+            invalidationsBefore = invalidations;
+        }
+
+        ProductResponse product;
+        try {
+            product = loader.load(id);
+        } catch (InvalidProductIdException e) {
+            synchronized (entries) {
+                if (invalidations == invalidationsBefore) {
+                    entries.put(id, new Entry(null, nanoClock.getAsLong() + negativeTtlNanos));
+                }
+            }
+            throw e;
+        }
+
+        if (product != null) {
+            store(id, new Entry(product, nanoClock.getAsLong() + ttlNanos));
+        }
+
+        return product;
+    }
+
+    @Override
+    public void invalidate(UUID id) {
+        synchronized (entries) {
+            entries.remove(id);
+            invalidations++;
+        }
+    }
+
+    @Override
+    public CacheStats stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    private Entry lookup(UUID id) {
+        synchronized (entries) {
+            Entry entry = entries.get(id);
+            if (entry == null) {
+                return null;
+            }
+
+            if (entry.expiresAtNanos - nanoClock.getAsLong() <= 0) {
+                entries.remove(id);
+                evictions.increment();
+                return null;
+            }
+
+            return entry;
+        }
+    }
+
+    private void store(UUID id, Entry entry) {
+        synchronized (entries) {
+            entries.put(id, entry);
+        }
+    }
+
+    private static final class Entry {
+        private final ProductResponse product;
+        private final long expiresAtNanos;
+
+        private Entry(ProductResponse product, long expiresAtNanos) {
+            this.product = product;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package consumer.cache;
+
+import consumer.contracts.ProductResponse;
+import consumer.exceptions.InvalidProductIdException;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+public class NoOpProductCache implements ProductCache {
+    private final LongAdder misses = new LongAdder();
+
+    @Override
+    public ProductResponse get(UUID id, ProductLoader loader) throws InvalidProductIdException {
+        misses.increment();
+        return loader.load(id);
+    }
+
+    @Override
+    public void invalidate(UUID id) {
+    }
+
+    @Override
+    public CacheStats stats() {
+        return new CacheStats(0, misses.sum(), 0, 0);
+    }
+}
@@ -0,0 +1,19 @@
+package consumer.cache;
+
+import consumer.contracts.ProductResponse;
+import consumer.exceptions.InvalidProductIdException;
+
+import java.util.UUID;
+
+public interface ProductCache {
+    ProductResponse get(UUID id, ProductLoader loader) throws InvalidProductIdException;
+
+    void invalidate(UUID id);
+
+    CacheStats stats();
+
+    @FunctionalInterface
+    interface ProductLoader {
+        ProductResponse load(UUID id) throws InvalidProductIdException;
+    }
+}
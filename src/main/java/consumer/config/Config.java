@@ -1,16 +1,168 @@
 package consumer.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import consumer.cache.LruProductCache;
+import consumer.cache.NoOpProductCache;
+import consumer.cache.ProductCache;
+import consumer.http.JdkClientHttpRequestFactory;
+import consumer.resilience.ResilientCalls;
+import consumer.services.AsyncProductsFetcher;
+import consumer.services.ProductEventsSubscriber;
+import consumer.services.ProductsBatcher;
+import consumer.services.ProductsFetcher;
+import consumer.services.ProductsReplica;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
 @Configuration
+@EnableConfigurationProperties(ConsumerProperties.class)
 public class Config {
     @Bean
-    RestTemplate restTemplate() {
+    RestTemplate restTemplate(ClientHttpRequestFactory clientHttpRequestFactory, ConsumerProperties properties) {
         return new RestTemplateBuilder()
-                .rootUri("http://localhost:8080")
+                .rootUri(properties.getProviderUrl())
+                .requestFactory(() -> clientHttpRequestFactory)
+                .messageConverters(createMessageConverters(properties.getHttp().getFormat()))
+                .build();
+    }
+
+    /**
+     * Returns the default message converters for the given format. With {@code CBOR}, the CBOR converter comes
+     * first, so responses are requested and request bodies are sent as CBOR; otherwise it is left out, so the
+     * provider never chooses CBOR just because the library is on the classpath.
+     */
+    public static List<HttpMessageConverter<?>> createMessageConverters(ConsumerProperties.Http.Format format) {
+        List<HttpMessageConverter<?>> converters = new ArrayList<>(new RestTemplate().getMessageConverters());
+        converters.removeIf(MappingJackson2CborHttpMessageConverter.class::isInstance);
+        if (format == ConsumerProperties.Http.Format.CBOR) {
+            converters.add(0, new MappingJackson2CborHttpMessageConverter());
+        }
+
+        return converters;
+    }
+
+    @Bean
+    ClientHttpRequestFactory clientHttpRequestFactory(ConsumerProperties properties) {
+        return createRequestFactory(properties.getHttp());
+    }
+
+    public static ClientHttpRequestFactory createRequestFactory(ConsumerProperties.Http http) {
+        switch (http.getTransport()) {
+            case SIMPLE:
+                SimpleClientHttpRequestFactory simple = new SimpleClientHttpRequestFactory();
+                simple.setConnectTimeout((int) http.getConnectTimeout().toMillis());
+                simple.setReadTimeout((int) http.getReadTimeout().toMillis());
+                return simple;
+            case HTTP2:
+                HttpClient httpClient = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_2)
+                        .connectTimeout(http.getConnectTimeout())
+                        .build();
+                return new JdkClientHttpRequestFactory(httpClient, http.getReadTimeout());
+            case POOLED:
+            default:
+                return new HttpComponentsClientHttpRequestFactory(createPooledHttpClient(http));
+        }
+    }
+
+    private static CloseableHttpClient createPooledHttpClient(ConsumerProperties.Http http) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(http.getMaxConnectionsTotal());
+        connectionManager.setDefaultMaxPerRoute(http.getMaxConnectionsPerRoute());
+        connectionManager.setValidateAfterInactivity(2_000);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout((int) http.getConnectTimeout().toMillis())
+                .setSocketTimeout((int) http.getReadTimeout().toMillis())
+                .setConnectionRequestTimeout((int) http.getPoolAcquireTimeout().toMillis())
+                .build();
+
+        long defaultKeepAlive = http.getKeepAlive().toMillis();
+        ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+            long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return keepAlive > 0 ? Math.min(keepAlive, defaultKeepAlive) : defaultKeepAlive;
+        };
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(keepAliveStrategy)
+                .evictExpiredConnections()
+                .evictIdleConnections(http.getIdleEviction().toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @Bean
+    AsyncProductsFetcher asyncProductsFetcher(ObjectMapper objectMapper, ConsumerProperties properties) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(properties.getHttp().getConnectTimeout())
+                .build();
+
+        return new AsyncProductsFetcher(httpClient, objectMapper, properties.getProviderUrl());
+    }
+
+    @Bean(destroyMethod = "close")
+    ResilientCalls resilientCalls(ConsumerProperties properties, MeterRegistry meterRegistry) {
+        return new ResilientCalls(properties.getResilience(), meterRegistry);
+    }
+
+    @Bean
+    ProductCache productCache(ConsumerProperties properties) {
+        ConsumerProperties.Cache cache = properties.getCache();
+        if (!cache.isEnabled()) {
+            return new NoOpProductCache();
+        }
+
+        return new LruProductCache(cache.getMaxSize(), cache.getTtl(), cache.getNegativeTtl());
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "consumer.batching", name = "enabled", havingValue = "true")
+    ProductsBatcher productsBatcher(ProductsFetcher productsFetcher, ConsumerProperties properties) {
+        return new ProductsBatcher(productsFetcher, properties.getBatching().getMaxSize(), properties.getBatching().getWindow());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "consumer.replica", name = "enabled", havingValue = "true")
+    ProductsReplica productsReplica(ProductsFetcher productsFetcher, ConsumerProperties properties) {
+        return new ProductsReplica(productsFetcher, properties.getReplica().getPageSize(), properties.getReplica().getMaxStaleness());
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @Lazy(false)
+    @ConditionalOnProperty(prefix = "consumer.events", name = "enabled", havingValue = "true")
+    ProductEventsSubscriber productEventsSubscriber(ObjectMapper objectMapper, ConsumerProperties properties,
+                                                    Optional<ProductsReplica> productsReplica, ProductCache productCache) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(properties.getHttp().getConnectTimeout())
                 .build();
+
+        return new ProductEventsSubscriber(httpClient, objectMapper, properties.getProviderUrl(), productsReplica,
+                productCache, properties.getEvents().getReconnectDelay());
     }
 }
@@ -0,0 +1,100 @@
+package consumer.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "consumer")
+public class ConsumerProperties {
+    private String providerUrl = "http://localhost:8080";
+    private final Http http = new Http();
+    private final Batching batching = new Batching();
+    private final Cache cache = new Cache();
+    private final Replica replica = new Replica();
+    private final Events events = new Events();
+    private final Resilience resilience = new Resilience();
+
+    @Data
+    public static class Http {
+        private Transport transport = Transport.POOLED;
+        private Format format = Format.JSON;
+        private int maxConnectionsTotal = 200;
+        private int maxConnectionsPerRoute = 50;
+        private Duration keepAlive = Duration.ofSeconds(30);
+        private Duration idleEviction = Duration.ofSeconds(60);
+        private Duration connectTimeout = Duration.ofSeconds(2);
+        private Duration readTimeout = Duration.ofSeconds(10);
+        private Duration poolAcquireTimeout = Duration.ofSeconds(1);
+
+        public enum Transport {
+            SIMPLE,
+            POOLED,
+            HTTP2
+        }
+
+        public enum Format {
+            JSON,
+            CBOR
+        }
+    }
+
+    @Data
+    public static class Batching {
+        private boolean enabled = false;
+        private int maxSize = 100;
+        private Duration window = Duration.ofMillis(10);
+    }
+
+    @Data
+    public static class Cache {
+        private boolean enabled = false;
+        private int maxSize = 10_000;
+        private Duration ttl = Duration.ofMinutes(5);
+        private Duration negativeTtl = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Replica {
+        private boolean enabled = false;
+        private int pageSize = 1000;
+        private Duration maxStaleness = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class Events {
+        private boolean enabled = false;
+        private Duration reconnectDelay = Duration.ofSeconds(1);
+    }
+
+    @Data
+    public static class Resilience {
+        private boolean enabled = false;
+        private Duration deadline = Duration.ofSeconds(2);
+        private Map<String, Duration> deadlines = new HashMap<>(Map.of(
+                "getAllProducts", Duration.ofSeconds(5),
+                "getProduct", Duration.ofMillis(500),
+                "getProductByIndex", Duration.ofMillis(500)));
+        private int maxAttempts = 2;
+        private int maxInFlightAttempts = 64;
+        private final Hedging hedging = new Hedging();
+        private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+        @Data
+        public static class Hedging {
+            private boolean enabled = true;
+            private double percentile = 95;
+            private Duration minDelay = Duration.ofMillis(10);
+            private int window = 1000;
+        }
+
+        @Data
+        public static class CircuitBreaker {
+            private int failureThreshold = 5;
+            private Duration openDuration = Duration.ofSeconds(10);
+        }
+    }
+}
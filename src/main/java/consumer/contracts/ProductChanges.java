@@ -0,0 +1,74 @@
+package consumer.contracts;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+public class ProductChanges {
+    private ProductResponse[] products;
+    private long sequence;
+    private UUID catalogId;
+
+    public ProductChanges(ProductResponse[] products, long sequence, UUID catalogId) {
+        this.products = products;
+        this.sequence = sequence;
+        this.catalogId = catalogId;
+    }
+
+    public ProductChanges() {
+    }
+
+    public ProductResponse[] getProducts() {
+        return this.products;
+    }
+
+    public long getSequence() {
+        return this.sequence;
+    }
+
+    public UUID getCatalogId() {
+        return this.catalogId;
+    }
+
+    public void setProducts(ProductResponse[] products) {
+        this.products = products;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public void setCatalogId(UUID catalogId) {
+        this.catalogId = catalogId;
+    }
+
+    public boolean equals(final Object o) {
+        if (o == this) return true;
+        if (!(o instanceof ProductChanges)) return false;
+        final ProductChanges other = (ProductChanges) o;
+        if (!other.canEqual((Object) this)) return false;
+        if (!Arrays.equals(this.getProducts(), other.getProducts())) return false;
+        if (this.getSequence() != other.getSequence()) return false;
+        final Object this$catalogId = this.getCatalogId();
+        final Object other$catalogId = other.getCatalogId();
+        return this$catalogId == null ? other$catalogId == null : this$catalogId.equals(other$catalogId);
+    }
+
+    protected boolean canEqual(final Object other) {
+        return other instanceof ProductChanges;
+    }
+
+    public int hashCode() {
+        final int PRIME = 59;
+        int result = 1;
+        result = result * PRIME + Arrays.hashCode(this.getProducts());
+        final long $sequence = this.getSequence();
+        result = result * PRIME + (int) ($sequence >>> 32 ^ $sequence);
+        final Object $catalogId = this.getCatalogId();
+        result = result * PRIME + ($catalogId == null ? 43 : $catalogId.hashCode());
+        return result;
+    }
+
+    public String toString() {
+        return "ProductChanges(products=" + Arrays.toString(this.getProducts()) + ", sequence=" + this.getSequence() + ", catalogId=" + this.getCatalogId() + ")";
+    }
+}
@@ -0,0 +1,58 @@
+package consumer.contracts;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+public class ProductsLookupResponse {
+    private ProductResponse[] products;
+    private UUID[] missing;
+
+    public ProductsLookupResponse(ProductResponse[] products, UUID[] missing) {
+        this.products = products;
+        this.missing = missing;
+    }
+
+    public ProductsLookupResponse() {
+    }
+
+    public ProductResponse[] getProducts() {
+        return this.products;
+    }
+
+    public UUID[] getMissing() {
+        return this.missing;
+    }
+
+    public void setProducts(ProductResponse[] products) {
+        this.products = products;
+    }
+
+    public void setMissing(UUID[] missing) {
+        this.missing = missing;
+    }
+
+    public boolean equals(final Object o) {
+        if (o == this) return true;
+        if (!(o instanceof ProductsLookupResponse)) return false;
+        final ProductsLookupResponse other = (ProductsLookupResponse) o;
+        if (!other.canEqual((Object) this)) return false;
+        if (!Arrays.equals(this.getProducts(), other.getProducts())) return false;
+        return Arrays.equals(this.getMissing(), other.getMissing());
+    }
+
+    protected boolean canEqual(final Object other) {
+        return other instanceof ProductsLookupResponse;
+    }
+
+    public int hashCode() {
+        final int PRIME = 59;
+        int result = 1;
+        result = result * PRIME + Arrays.hashCode(this.getProducts());
+        result = result * PRIME + Arrays.hashCode(this.getMissing());
+        return result;
+    }
+
+    public String toString() {
+        return "ProductsLookupResponse(products=" + Arrays.toString(this.getProducts()) + ", missing=" + Arrays.toString(this.getMissing()) + ")";
+    }
+}
@@ -0,0 +1,48 @@
+package consumer.contracts;
+
+import java.util.Arrays;
+
+public class ProductsPage {
+    private final ProductResponse[] products;
+    private final String nextCursor;
+
+    public ProductsPage(ProductResponse[] products, String nextCursor) {
+        this.products = products;
+        this.nextCursor = nextCursor;
+    }
+
+    public ProductResponse[] getProducts() {
+        return this.products;
+    }
+
+    public String getNextCursor() {
+        return this.nextCursor;
+    }
+
+    public boolean hasNext() {
+        return this.nextCursor != null;
+    }
+
+    public boolean equals(final Object o) {
+        if (o == this) return true;
+        if (!(o instanceof ProductsPage)) return false;
+        final ProductsPage other = (ProductsPage) o;
+        if (!Arrays.equals(this.getProducts(), other.getProducts())) return false;
+        final Object this$nextCursor = this.getNextCursor();
+        final Object other$nextCursor = other.getNextCursor();
+        return this$nextCursor == null ? other$nextCursor == null : this$nextCursor.equals(other$nextCursor);
+    }
+
+    public int hashCode() {
+        final int PRIME = 59;
+        int result = 1;
+        result = result * PRIME + Arrays.hashCode(this.getProducts());
+        final Object $nextCursor = this.getNextCursor();
+        result = result * PRIME + ($nextCursor == null ? 43 : $nextCursor.hashCode());
+        return result;
+    }
+
+    public String toString() {
+        return "ProductsPage(products=" + Arrays.toString(this.getProducts()) + ", nextCursor=" + this.getNextCursor() + ")";
+    }
+}
@@ -0,0 +1,9 @@
+package consumer.exceptions;
+
+import org.springframework.web.client.ResourceAccessException;
+
+public class CircuitOpenException extends ResourceAccessException {
+    public CircuitOpenException(String operation) {
+        super(operation + " was not sent, the products provider is considered unavailable");
+    }
+}
@@ -0,0 +1,11 @@
+package consumer.exceptions;
+
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+
+public class DeadlineExceededException extends ResourceAccessException {
+    public DeadlineExceededException(String operation, Duration deadline) {
+        super(operation + " did not complete within its deadline of " + deadline.toMillis() + " ms");
+    }
+}
@@ -0,0 +1,54 @@
+package consumer.resilience;
+
+import java.util.Arrays;
+
+/**
+ * The latencies of the last {@code size} calls of an operation, for estimating a percentile of its latency.
+ * The percentile is recomputed after every tenth of the window.
+ */
+class LatencyWindow {
+    private final long[] latencies;
+    private final double percentile;
+    private final int recomputeInterval;
+
+    private int count;
+    private int next;
+    private int sinceRecompute;
+    private long cachedPercentile = -1;
+
+    LatencyWindow(int size, double percentile) {
+        if (size < 1) {
+            throw new IllegalArgumentException("The window size must be positive");
+        }
+
+        this.latencies = new long[size];
+        this.percentile = percentile;
+        this.recomputeInterval = Math.max(1, size / 10);
+    }
+
+    synchronized void record(long nanos) {
+        latencies[next] = nanos;
+        next = (next + 1) % latencies.length;
+        count = Math.min(count + 1, latencies.length);
+        if (++sinceRecompute >= recomputeInterval) {
+            cachedPercentile = -1;
+        }
+    }
+
+    /**
+     * Returns the percentile in nanoseconds, or -1 while fewer than {@code minSamples} latencies were recorded.
+     */
+    synchronized long percentile(int minSamples) {
+        if (count < minSamples) {
+            return -1;
+        }
+        if (cachedPercentile < 0) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            cachedPercentile = sorted[Math.max(0, (int) Math.ceil(percentile / 100.0 * count) - 1)];
+            sinceRecompute = 0;
+        }
+
+        return cachedPercentile;
+    }
+}
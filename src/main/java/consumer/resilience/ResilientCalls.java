@@ -0,0 +1,261 @@
+package consumer.resilience;
+
+import consumer.config.ConsumerProperties;
+import consumer.exceptions.CircuitOpenException;
+import consumer.exceptions.DeadlineExceededException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Makes calls to the products provider with a deadline per operation, behind a {@link CircuitBreaker}, each
+ * attempt on a bounded pool of threads.
+ * <p>
+ * {@link #read} is for idempotent calls. When an attempt has not answered within the operation's recent
+ * {@code hedging.percentile} latency, a hedged attempt is sent alongside it and the first answer wins. An attempt
+ * that ends without a usable answer (no response, or 502, 503 or 504) is retried right away. {@link #retried}
+ * only retries, for writes the provider deduplicates, and {@link #once} makes a single attempt. No call makes
+ * more than {@code maxAttempts} attempts.
+ * <p>
+ * A call that misses its deadline fails with a {@link DeadlineExceededException} and its attempts are cancelled.
+ * A blocking attempt still holds its thread until the transport's read timeout, so the size of the pool bounds
+ * the threads a hanging provider can tie up. No attempts are started while the pool is full, and a call that
+ * cannot start any fails right away without counting against the provider.
+ * <p>
+ * The circuit breaker counts calls, not attempts. A call fails when it misses its deadline, ends without a usable
+ * answer or with a server error; other error responses, such as 404, show that the provider is up. Without
+ * {@code enabled}, calls are made directly on the caller's thread.
+ */
+public class ResilientCalls implements AutoCloseable {
+    public static final String HEDGES_METRIC = "products.client.hedges";
+    public static final String RETRIES_METRIC = "products.client.retries";
+    public static final String CIRCUIT_OPEN_METRIC = "products.client.circuit.open";
+
+    private static final int MIN_HEDGING_SAMPLES = 20;
+
+    private final boolean enabled;
+    private final Duration defaultDeadline;
+    private final Map<String, Duration> deadlines;
+    private final int maxAttempts;
+    private final boolean hedging;
+    private final double hedgingPercentile;
+    private final long minHedgeDelayNanos;
+    private final int hedgingWindow;
+    private final CircuitBreaker circuitBreaker;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor executor;
+    private final ConcurrentMap<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+
+    public ResilientCalls(ConsumerProperties.Resilience properties, MeterRegistry meterRegistry) {
+        if (properties.getMaxAttempts() < 1 || properties.getMaxInFlightAttempts() < 1) {
+            throw new IllegalArgumentException("maxAttempts and maxInFlightAttempts must be positive");
+        }
+
+        this.enabled = properties.isEnabled();
+        this.defaultDeadline = properties.getDeadline();
+        this.deadlines = Map.copyOf(properties.getDeadlines());
+        this.maxAttempts = properties.getMaxAttempts();
+        this.hedging = properties.getHedging().isEnabled();
+        this.hedgingPercentile = properties.getHedging().getPercentile();
+        this.minHedgeDelayNanos = properties.getHedging().getMinDelay().toNanos();
+        this.hedgingWindow = properties.getHedging().getWindow();
+        this.circuitBreaker = new CircuitBreaker(properties.getCircuitBreaker().getFailureThreshold(),
+                properties.getCircuitBreaker().getOpenDuration());
+        this.meterRegistry = meterRegistry;
+
+        if (!enabled) {
+            this.executor = null;
+            return;
+        }
+
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(properties.getMaxInFlightAttempts(), properties.getMaxInFlightAttempts(),
+                60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "products-attempt-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+
+        Gauge.builder(CIRCUIT_OPEN_METRIC, circuitBreaker, breaker -> breaker.getState() == CircuitBreaker.State.CLOSED ? 0 : 1)
+                .description("Whether calls to the products provider are being rejected")
+                .register(meterRegistry);
+    }
+
+    public static ResilientCalls disabled() {
+        return new ResilientCalls(new ConsumerProperties.Resilience(), new SimpleMeterRegistry());
+    }
+
+    public <T> T read(String operation, Supplier<T> attempt) {
+        return call(operation, attempt, maxAttempts, hedging);
+    }
+
+    public <T> T retried(String operation, Supplier<T> attempt) {
+        return call(operation, attempt, maxAttempts, false);
+    }
+
+    public <T> T once(String operation, Supplier<T> attempt) {
+        return call(operation, attempt, 1, false);
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private <T> T call(String operation, Supplier<T> attempt, int maxAttempts, boolean hedged) {
+        if (!enabled) {
+            return attempt.get();
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            throw new CircuitOpenException(operation);
+        }
+
+        Duration deadline = deadlines.getOrDefault(operation, defaultDeadline);
+        long deadlineAt = System.nanoTime() + deadline.toNanos();
+        BlockingQueue<Attempt<T>> completed = new LinkedBlockingQueue<>();
+        List<Future<?>> attempts = new ArrayList<>();
+        try {
+            if (!start(attempt, completed, attempts)) {
+                // The pool is full of attempts still in flight, which says nothing new about the provider
+                circuitBreaker.release();
+                throw new ResourceAccessException(operation + " was not sent, "
+                        + executor.getMaximumPoolSize() + " attempts are already in flight");
+            }
+
+            int pending = 1;
+            long hedgeDelay = hedged ? hedgeDelay(operation) : -1;
+            long hedgeAt = System.nanoTime() + hedgeDelay;
+            RuntimeException lastFailure = null;
+            while (true) {
+                boolean hedgeDue = hedgeDelay >= 0 && attempts.size() < maxAttempts && hedgeAt - deadlineAt < 0;
+                Attempt<T> done = completed.poll((hedgeDue ? hedgeAt : deadlineAt) - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (done == null) {
+                    if (System.nanoTime() - deadlineAt >= 0) {
+                        circuitBreaker.onFailure();
+                        throw new DeadlineExceededException(operation, deadline);
+                    }
+
+                    if (start(attempt, completed, attempts)) {
+                        pending++;
+                        meterRegistry.counter(HEDGES_METRIC, "operation", operation).increment();
+                    }
+                    hedgeAt = System.nanoTime() + hedgeDelay;
+                    continue;
+                }
+
+                pending--;
+                if (done.failure == null || !isUnanswered(done.failure)) {
+                    latencies(operation).record(done.nanos);
+                    if (done.failure instanceof HttpServerErrorException) {
+                        circuitBreaker.onFailure();
+                    } else {
+                        circuitBreaker.onSuccess();
+                    }
+                    if (done.failure != null) {
+                        throw done.failure;
+                    }
+
+                    return done.value;
+                }
+
+                lastFailure = done.failure;
+                if (pending > 0) {
+                    continue;
+                }
+                if (attempts.size() < maxAttempts && start(attempt, completed, attempts)) {
+                    pending++;
+                    meterRegistry.counter(RETRIES_METRIC, "operation", operation).increment();
+                    continue;
+                }
+
+                circuitBreaker.onFailure();
+                throw lastFailure;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            circuitBreaker.release();
+            throw new ResourceAccessException("Interrupted while waiting for " + operation);
+        } finally {
+            for (Future<?> future : attempts) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private <T> boolean start(Supplier<T> attempt, BlockingQueue<Attempt<T>> completed, List<Future<?>> attempts) {
+        try {
+            attempts.add(executor.submit(() -> {
+                long started = System.nanoTime();
+                try {
+                    T value = attempt.get();
+                    completed.add(new Attempt<>(value, null, System.nanoTime() - started));
+                } catch (RuntimeException e) {
+                    completed.add(new Attempt<>(null, e, System.nanoTime() - started));
+                }
+            }));
+
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns how long to wait for an attempt before hedging it, or -1 while too few latencies are known.
+     */
+    private long hedgeDelay(String operation) {
+        long percentile = latencies(operation).percentile(MIN_HEDGING_SAMPLES);
+        return percentile < 0 ? -1 : Math.max(percentile, minHedgeDelayNanos);
+    }
+
+    private LatencyWindow latencies(String operation) {
+        return latencies.computeIfAbsent(operation, name -> new LatencyWindow(hedgingWindow, hedgingPercentile));
+    }
+
+    private static boolean isUnanswered(RuntimeException failure) {
+        if (failure instanceof HttpServerErrorException) {
+            HttpStatus status = ((HttpServerErrorException) failure).getStatusCode();
+            return status == HttpStatus.BAD_GATEWAY || status == HttpStatus.SERVICE_UNAVAILABLE || status == HttpStatus.GATEWAY_TIMEOUT;
+        }
+
+        return failure instanceof ResourceAccessException;
+    }
+
+    private static final class Attempt<T> {
+        private final T value;
+        private final RuntimeException failure;
+        private final long nanos;
+
+        private Attempt(T value, RuntimeException failure, long nanos) {
+            this.value = value;
+            this.failure = failure;
+            this.nanos = nanos;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package consumer.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import consumer.contracts.CreateProduct;
+import consumer.contracts.ProductResponse;
+import consumer.exceptions.InvalidProductIdException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.UnknownHttpStatusCodeException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Non-blocking counterpart of {@link ProductsFetcher} built on the JDK {@link HttpClient}.
+ * <p>
+ * No thread is held while a request is in flight. Errors are mapped exactly like the blocking fetcher does,
+ * but are delivered through the returned future instead of being thrown.
+ */
+public class AsyncProductsFetcher {
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final String baseUrl;
+
+    public AsyncProductsFetcher(HttpClient httpClient, ObjectMapper objectMapper, String baseUrl) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    }
+
+    public CompletableFuture<ProductResponse[]> getAllProducts() {
+        return send(get("/api/products"))
+                .thenApply(response -> read(checkStatus(response), ProductResponse[].class));
+    }
+
+    public CompletableFuture<ProductResponse> getProduct(UUID id) {
+        return send(get("/api/products/" + id))
+                .thenApply(response -> {
+                    if (response.statusCode() == HttpStatus.NOT_FOUND.value()) {
+                        throw new CompletionException(new InvalidProductIdException(id));
+                    }
+
+                    return read(checkStatus(response), ProductResponse.class);
+                });
+    }
+
+    public CompletableFuture<ProductResponse> createProduct(String name, String description, double price) {
+        CreateProduct createProduct = new CreateProduct(name, description, price);
+        HttpRequest request = HttpRequest.newBuilder(uri("/api/products"))
+                .header(HttpHeaders.ACCEPT, "application/json")
+                .header(HttpHeaders.CONTENT_TYPE, "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(write(createProduct)))
+                .build();
+
+        return send(request)
+                .thenApply(response -> read(checkStatus(response), ProductResponse.class));
+    }
+
+    public CompletableFuture<ProductResponse> getProductByIndex(int index) {
+        return send(get("/api/products/find/" + index))
+                .thenApply(response -> {
+                    if (response.statusCode() == HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+                        throw new RuntimeException("The product at index " + index + " does not exist");
+                    }
+
+                    return read(checkStatus(response), ProductResponse.class);
+                });
+    }
+
+    private CompletableFuture<HttpResponse<byte[]>> send(HttpRequest request) {
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(uri(path))
+                .header(HttpHeaders.ACCEPT, "application/json")
+                .GET()
+                .build();
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    private HttpResponse<byte[]> checkStatus(HttpResponse<byte[]> response) {
+        int status = response.statusCode();
+        if (status < 400) {
+            return response;
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        response.headers().map().forEach(headers::addAll);
+        HttpStatus httpStatus = HttpStatus.resolve(status);
+        if (httpStatus == null) {
+            throw new UnknownHttpStatusCodeException(status, "", headers, response.body(), StandardCharsets.UTF_8);
+        }
+
+        if (httpStatus.is4xxClientError()) {
+            throw HttpClientErrorException.create(httpStatus, httpStatus.getReasonPhrase(), headers, response.body(), StandardCharsets.UTF_8);
+        }
+
+        throw HttpServerErrorException.create(httpStatus, httpStatus.getReasonPhrase(), headers, response.body(), StandardCharsets.UTF_8);
+    }
+
+    private <T> T read(HttpResponse<byte[]> response, Class<T> type) {
+        if (response.body() == null || response.body().length == 0) {
+            return null;
+        }
+
+        try {
+            return objectMapper.readValue(response.body(), type);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] write(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
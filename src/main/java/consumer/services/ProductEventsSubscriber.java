@@ -0,0 +1,210 @@
+package consumer.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import consumer.cache.ProductCache;
+import consumer.contracts.ProductResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Listens to the provider's product events and applies them to the local product data: created products are
+ * added to the replica, if there is one, and dropped from the cache, where they may be remembered as missing.
+ * <p>
+ * Event ids name the provider's catalog and a sequence in it, as {@code <catalogId>:<sequence>}. When the stream
+ * ends or fails, the subscriber reconnects after {@code reconnectDelay}, sending the id of the last products it
+ * applied as {@code Last-Event-ID} so that none are missed. When the provider rejects it, e.g. because it restarted
+ * with a new catalog, the replica is reset and the subscriber reconnects without one.
+ */
+public class ProductEventsSubscriber implements AutoCloseable {
+    public static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProductEventsSubscriber.class);
+    private static final String PRODUCTS_EVENT = "products";
+    private static final String HEARTBEAT_EVENT = "heartbeat";
+    private static final char EVENT_ID_SEPARATOR = ':';
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final URI eventsUri;
+    private final Optional<ProductsReplica> productsReplica;
+    private final ProductCache productCache;
+    private final Duration reconnectDelay;
+    private final Thread thread;
+
+    private volatile boolean closed;
+    private volatile String lastEventId;
+    private volatile Stream<String> lines;
+
+    public ProductEventsSubscriber(HttpClient httpClient, ObjectMapper objectMapper, String baseUrl,
+                                   Optional<ProductsReplica> productsReplica, ProductCache productCache,
+                                   Duration reconnectDelay) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.eventsUri = URI.create((baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl) + "/api/products/events");
+        this.productsReplica = productsReplica;
+        this.productCache = productCache;
+        this.reconnectDelay = reconnectDelay;
+        this.thread = new Thread(this::run, "product-events-subscriber");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * The event id of the last products applied, or {@code null} before the first event.
+     */
+    public String getLastEventId() {
+        return lastEventId;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        thread.interrupt();
+        Stream<String> current = lines;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    private void run() {
+        while (!closed) {
+            try {
+                listen();
+            } catch (IOException | RuntimeException e) {
+                if (!closed) {
+                    LOGGER.warn("Product events stream failed, reconnecting in {}", reconnectDelay, e);
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            try {
+                Thread.sleep(reconnectDelay.toMillis());
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void listen() throws IOException, InterruptedException {
+        String resumeFrom = productsReplica.isPresent() ? replicaEventId(productsReplica.get()) : lastEventId;
+        HttpRequest.Builder request = HttpRequest.newBuilder(eventsUri)
+                .header(HttpHeaders.ACCEPT, MediaType.TEXT_EVENT_STREAM_VALUE)
+                .GET();
+        if (resumeFrom != null) {
+            request.header(LAST_EVENT_ID_HEADER, resumeFrom);
+        }
+
+        HttpResponse<Stream<String>> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofLines());
+        try (Stream<String> body = response.body()) {
+            if (response.statusCode() == HttpStatus.BAD_REQUEST.value() && resumeFrom != null) {
+                // The provider no longer has the catalog we resumed from: drop our copy and start over from now
+                lastEventId = null;
+                productsReplica.ifPresent(ProductsReplica::reset);
+                return;
+            }
+            if (response.statusCode() != HttpStatus.OK.value()) {
+                throw new IllegalStateException("Product events request failed with status " + response.statusCode());
+            }
+
+            lines = body;
+            read(body.iterator());
+        } finally {
+            lines = null;
+        }
+    }
+
+    private void read(Iterator<String> body) throws IOException {
+        String event = null;
+        String id = null;
+        StringBuilder data = new StringBuilder();
+
+        while (!closed && body.hasNext()) {
+            String line = body.next();
+            if (line.isEmpty()) {
+                if (data.length() > 0) {
+                    dispatch(event, id, data.toString());
+                }
+                event = null;
+                id = null;
+                data.setLength(0);
+                continue;
+            }
+            if (line.startsWith(":")) {
+                continue;
+            }
+
+            int colon = line.indexOf(':');
+            String field = colon < 0 ? line : line.substring(0, colon);
+            String value = colon < 0 ? "" : line.substring(line.startsWith(" ", colon + 1) ? colon + 2 : colon + 1);
+            switch (field) {
+                case "event":
+                    event = value;
+                    break;
+                case "id":
+                    id = value;
+                    break;
+                case "data":
+                    if (data.length() > 0) {
+                        data.append('\n');
+                    }
+                    data.append(value);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private void dispatch(String event, String id, String data) throws IOException {
+        if (PRODUCTS_EVENT.equals(event) && id != null) {
+            ProductResponse[] created = objectMapper.readValue(data, ProductResponse[].class);
+            productsReplica.ifPresent(replica -> replica.apply(catalogIdOf(id), sequenceOf(id), created));
+            for (ProductResponse product : created) {
+                productCache.invalidate(product.getId());
+            }
+            lastEventId = id;
+        } else if (HEARTBEAT_EVENT.equals(event)) {
+            String heartbeatId = data.trim();
+            productsReplica.ifPresent(replica -> replica.confirm(catalogIdOf(heartbeatId), sequenceOf(heartbeatId)));
+            if (lastEventId == null) {
+                lastEventId = heartbeatId;
+            }
+        }
+    }
+
+    private static UUID catalogIdOf(String eventId) {
+        return UUID.fromString(eventId.substring(0, eventId.lastIndexOf(EVENT_ID_SEPARATOR)));
+    }
+
+    private static long sequenceOf(String eventId) {
+        return Long.parseLong(eventId.substring(eventId.lastIndexOf(EVENT_ID_SEPARATOR) + 1));
+    }
+
+    /**
+     * The event id of everything the replica has applied, or {@code null} while it holds no catalog.
+     */
+    private static String replicaEventId(ProductsReplica replica) {
+        synchronized (replica) {
+            UUID catalogId = replica.getCatalogId();
+            return catalogId == null ? null : catalogId.toString() + EVENT_ID_SEPARATOR + replica.getSequence();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package consumer.services;
+
+import consumer.exceptions.InvalidProductIdException;
+
+import java.util.UUID;
+
+public class ProductNameResult {
+    private final UUID id;
+    private final String name;
+    private final boolean valid;
+
+    private ProductNameResult(UUID id, String name, boolean valid) {
+        this.id = id;
+        this.name = name;
+        this.valid = valid;
+    }
+
+    public static ProductNameResult found(UUID id, String name) {
+        return new ProductNameResult(id, name, true);
+    }
+
+    public static ProductNameResult invalid(UUID id) {
+        return new ProductNameResult(id, null, false);
+    }
+
+    public UUID getId() {
+        return this.id;
+    }
+
+    public boolean isValid() {
+        return this.valid;
+    }
+
+    public String getName() throws InvalidProductIdException {
+        if (!valid) {
+            throw new InvalidProductIdException(id);
+        }
+
+        return this.name;
+    }
+
+    public String toString() {
+        return "ProductNameResult(id=" + this.getId() + ", name=" + this.name + ", valid=" + this.isValid() + ")";
+    }
+}
@@ -0,0 +1,134 @@
+package consumer.services;
+
+import consumer.contracts.CreateProduct;
+import consumer.contracts.ProductResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects concurrent product creations and sends them to the provider as one batch request.
+ * <p>
+ * A batch is sent as soon as it reaches {@code maxBatchSize}, by the caller that filled it, or when
+ * {@code window} has elapsed since its first product was queued, by the batcher's timer thread.
+ */
+public class ProductsBatcher implements AutoCloseable {
+    private final ProductsFetcher productsFetcher;
+    private final int maxBatchSize;
+    private final Duration window;
+    private final ScheduledExecutorService scheduler;
+
+    private List<PendingProduct> pending = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    public ProductsBatcher(ProductsFetcher productsFetcher, int maxBatchSize, Duration window) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be positive");
+        }
+
+        this.productsFetcher = productsFetcher;
+        this.maxBatchSize = maxBatchSize;
+        this.window = window;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "products-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public CompletableFuture<ProductResponse> createProduct(String name, String description, double price) {
+        PendingProduct product = new PendingProduct(new CreateProduct(name, description, price));
+        List<PendingProduct> fullBatch = null;
+
+        synchronized (this) {
+            if (scheduler.isShutdown()) {
+                throw new IllegalStateException("The batcher is closed");
+            }
+
+            pending.add(product);
+            if (pending.size() >= maxBatchSize) {
+                fullBatch = drain();
+            } else if (pending.size() == 1) {
+                scheduledFlush = scheduler.schedule(this::flush, window.toNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+
+        if (fullBatch != null) {
+            send(fullBatch);
+        }
+
+        return product.result;
+    }
+
+    public void flush() {
+        List<PendingProduct> batch;
+        synchronized (this) {
+            batch = drain();
+        }
+
+        send(batch);
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            scheduler.shutdown();
+        }
+
+        flush();
+    }
+
+    private List<PendingProduct> drain() {
+        List<PendingProduct> batch = pending;
+        pending = new ArrayList<>();
+
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+
+        return batch;
+    }
+
+    private void send(List<PendingProduct> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<CreateProduct> createProducts = new ArrayList<>(batch.size());
+        for (PendingProduct product : batch) {
+            createProducts.add(product.createProduct);
+        }
+
+        try {
+            ProductResponse[] created = productsFetcher.createProducts(createProducts);
+            if (created == null || created.length != batch.size()) {
+                throw new IllegalStateException("Expected " + batch.size() + " created products but got "
+                        + (created == null ? 0 : created.length));
+            }
+
+            for (int i = 0; i < created.length; i++) {
+                batch.get(i).result.complete(created[i]);
+            }
+        } catch (RuntimeException e) {
+            for (PendingProduct product : batch) {
+                product.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static final class PendingProduct {
+        private final CreateProduct createProduct;
+        private final CompletableFuture<ProductResponse> result = new CompletableFuture<>();
+
+        private PendingProduct(CreateProduct createProduct) {
+            this.createProduct = createProduct;
+        }
+    }
+}
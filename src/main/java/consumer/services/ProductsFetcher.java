@@ -1,28 +1,173 @@
 package consumer.services;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import consumer.contracts.CreateProduct;
+import consumer.contracts.ProductChanges;
 import consumer.contracts.ProductResponse;
+import consumer.contracts.ProductsLookupResponse;
+import consumer.contracts.ProductsPage;
+import consumer.exceptions.CircuitOpenException;
+import consumer.exceptions.DeadlineExceededException;
 import consumer.exceptions.InvalidProductIdException;
-import lombok.RequiredArgsConstructor;
+import consumer.resilience.ResilientCalls;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Component
-@RequiredArgsConstructor
 public class ProductsFetcher {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    public static final String REQUESTS_METRIC = "products.client.requests";
+
+    private static final int MAX_REVALIDATED_RESPONSES = 1024;
+
     private final RestTemplate restTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ResilientCalls resilientCalls;
+    private final Map<String, RevalidatedResponse> revalidatedResponses = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, RevalidatedResponse> eldest) {
+                    return size() > MAX_REVALIDATED_RESPONSES;
+                }
+            });
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlightRequests = new ConcurrentHashMap<>();
+
+    public ProductsFetcher(RestTemplate restTemplate, MeterRegistry meterRegistry) {
+        this(restTemplate, meterRegistry, ResilientCalls.disabled());
+    }
+
+    @Autowired
+    public ProductsFetcher(RestTemplate restTemplate, MeterRegistry meterRegistry, ResilientCalls resilientCalls) {
+        this.restTemplate = restTemplate;
+        this.meterRegistry = meterRegistry;
+        this.resilientCalls = resilientCalls;
+    }
 
     public ProductResponse[] getAllProducts() {
-        return restTemplate.getForEntity("/api/products", ProductResponse[].class).getBody();
+        return timed("getAllProducts", () -> getShared("/api/products", ProductResponse[].class,
+                () -> resilientCalls.read("getAllProducts", () -> getRevalidated("/api/products", ProductResponse[].class))));
+    }
+
+    public ProductsPage getProductsPage(String after, int limit) {
+        return getProductsPage(after, limit, null);
+    }
+
+    /**
+     * Fetches a page of products with only the given fields set, or with all of them when {@code fields} is
+     * {@code null}.
+     */
+    public ProductsPage getProductsPage(String after, int limit, List<String> fields) {
+        UriComponentsBuilder uri = UriComponentsBuilder.fromPath("/api/products");
+        if (after != null) {
+            uri.queryParam("after", after);
+        }
+        uri.queryParam("limit", limit);
+        if (fields != null) {
+            uri.queryParam("fields", String.join(",", fields));
+        }
+
+        ResponseEntity<ProductResponse[]> response = timed("getProductsPage", () -> restTemplate.getForEntity(uri.toUriString(), ProductResponse[].class));
+
+        ProductResponse[] products = response.getBody() == null ? new ProductResponse[0] : response.getBody();
+        return new ProductsPage(products, response.getHeaders().getFirst(NEXT_CURSOR_HEADER));
+    }
+
+    public Stream<ProductResponse> streamAllProducts(int pageSize) {
+        return streamAllProducts(pageSize, null);
+    }
+
+    public Stream<ProductResponse> streamAllProducts(int pageSize, List<String> fields) {
+        Iterator<ProductResponse> iterator = new Iterator<>() {
+            private ProductsPage page;
+            private int position;
+
+            @Override
+            public boolean hasNext() {
+                while (page == null || position == page.getProducts().length) {
+                    if (page != null && !page.hasNext()) {
+                        return false;
+                    }
+
+                    page = getProductsPage(page == null ? null : page.getNextCursor(), pageSize, fields);
+                    position = 0;
+                }
+
+                return true;
+            }
+
+            @Override
+            public ProductResponse next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                return page.getProducts()[position++];
+            }
+        };
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    public void forEachProduct(Consumer<ProductResponse> action) {
+        timed("forEachProduct", () -> restTemplate.execute("/api/products", HttpMethod.GET,
+                request -> request.getHeaders().setAccept(List.of(NDJSON)),
+                response -> {
+                    try (MappingIterator<ProductResponse> products = objectMapper().readerFor(ProductResponse.class).readValues(response.getBody())) {
+                        while (products.hasNext()) {
+                            action.accept(products.next());
+                        }
+                    }
+
+                    return null;
+                }));
     }
 
     public ProductResponse getProduct(UUID id) throws InvalidProductIdException {
+        return getProduct(id, null);
+    }
+
+    /**
+     * Fetches a product with only the given fields set, or with all of them when {@code fields} is {@code null}.
+     */
+    public ProductResponse getProduct(UUID id, List<String> fields) throws InvalidProductIdException {
+        String url = fields == null ? "/api/products/" + id : "/api/products/" + id + "?fields=" + String.join(",", fields);
         try {
-            return restTemplate.getForEntity("/api/products/" + id, ProductResponse.class).getBody();
+            return timed("getProduct", () -> getShared(url, ProductResponse.class,
+                    () -> resilientCalls.read("getProduct", () -> getRevalidated(url, ProductResponse.class))));
         } catch (HttpStatusCodeException e) {
             if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
                 throw new InvalidProductIdException(id);
@@ -32,21 +177,190 @@ public class ProductsFetcher {
         }
     }
 
+    public ProductsLookupResponse getProducts(Collection<UUID> ids) {
+        return timed("getProducts", () -> restTemplate.postForEntity("/api/products/lookup", ids, ProductsLookupResponse.class).getBody());
+    }
+
+    public ProductChanges getChanges(long since, int limit) {
+        return timed("getChanges", () -> restTemplate.getForObject("/api/products/changes?since={since}&limit={limit}", ProductChanges.class, since, limit));
+    }
+
+    public ProductResponse[] searchProducts(Integer storeId, Double minPrice, Double maxPrice, int limit) {
+        UriComponentsBuilder uri = UriComponentsBuilder.fromPath("/api/products/search");
+        if (storeId != null) {
+            uri.queryParam("storeId", storeId);
+        }
+        if (minPrice != null) {
+            uri.queryParam("minPrice", minPrice);
+        }
+        if (maxPrice != null) {
+            uri.queryParam("maxPrice", maxPrice);
+        }
+        uri.queryParam("limit", limit);
+
+        return timed("searchProducts", () -> restTemplate.getForObject(uri.toUriString(), ProductResponse[].class));
+    }
+
+    public ProductResponse[] searchProductsByText(String query, int limit) {
+        return timed("searchProductsByText", () -> restTemplate.getForObject("/api/products/search/text?q={q}&limit={limit}", ProductResponse[].class, query, limit));
+    }
+
     public ProductResponse createProduct(String name, String description, double price) {
         CreateProduct createProduct = new CreateProduct(name, description, price);
 
-        return restTemplate.postForEntity("/api/products", createProduct, ProductResponse.class).getBody();
+        return timed("createProduct", () -> resilientCalls.once("createProduct",
+                () -> restTemplate.postForEntity("/api/products", createProduct, ProductResponse.class).getBody()));
+    }
+
+    /**
+     * Creates a product under an idempotency key. The provider creates at most one product per key, so unlike
+     * {@link #createProduct(String, String, double)} the request is retried when it fails without an answer. Use a
+     * new key, e.g. a random UUID, for every product.
+     */
+    public ProductResponse createProduct(String name, String description, double price, String idempotencyKey) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+        HttpEntity<CreateProduct> request = new HttpEntity<>(new CreateProduct(name, description, price), headers);
+
+        return timed("createProduct", () -> resilientCalls.retried("createProduct",
+                () -> restTemplate.postForEntity("/api/products", request, ProductResponse.class).getBody()));
+    }
+
+    public ProductResponse[] createProducts(List<CreateProduct> createProducts) {
+        return timed("createProducts", () -> restTemplate.postForEntity("/api/products/batch", createProducts, ProductResponse[].class).getBody());
     }
 
     public ProductResponse getProductByIndex(int index) {
+        // The provider answers 500 for a missing index; mapping it within the attempt keeps it from counting as a
+        // provider failure
+        return timed("getProductByIndex", () -> resilientCalls.read("getProductByIndex", () -> {
+            try {
+                return restTemplate.getForEntity("/api/products/find/" + index, ProductResponse.class).getBody();
+            } catch (HttpStatusCodeException e) {
+                if (e.getStatusCode() == HttpStatus.INTERNAL_SERVER_ERROR) {
+                    throw new RuntimeException("The product at index " + index + " does not exist", e);
+                }
+
+                throw e;
+            }
+        }));
+    }
+
+    /**
+     * Records the duration of a request in the {@value #REQUESTS_METRIC} timer, tagged with the operation and with
+     * its outcome: {@code ok}, {@code not_found}, {@code client_error}, {@code server_error},
+     * {@code deadline_exceeded}, {@code circuit_open} or {@code error} when no response was received. A failure
+     * caused by an error response is tagged with that response's outcome.
+     */
+    private <T> T timed(String operation, Supplier<T> request) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
         try {
-            return restTemplate.getForEntity("/api/products/find/" + index, ProductResponse.class).getBody();
+            T response = request.get();
+            outcome = "ok";
+            return response;
         } catch (HttpStatusCodeException e) {
-            if (e.getStatusCode() == HttpStatus.INTERNAL_SERVER_ERROR) {
-                throw new RuntimeException("The product at index " + index + " does not exist");
+            outcome = outcome(e.getStatusCode());
+            throw e;
+        } catch (DeadlineExceededException e) {
+            outcome = "deadline_exceeded";
+            throw e;
+        } catch (CircuitOpenException e) {
+            outcome = "circuit_open";
+            throw e;
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof HttpStatusCodeException) {
+                outcome = outcome(((HttpStatusCodeException) e.getCause()).getStatusCode());
             }
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(REQUESTS_METRIC)
+                    .description("Requests made to the products provider")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    private static String outcome(HttpStatus status) {
+        if (status == HttpStatus.NOT_FOUND) {
+            return "not_found";
+        }
 
+        return status.is5xxServerError() ? "server_error" : "client_error";
+    }
+
+    private <T> T getShared(String url, Class<T> responseType, Supplier<T> request) {
+        CompletableFuture<Object> shared = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = inFlightRequests.putIfAbsent(url, shared);
+        if (inFlight != null) {
+            try {
+                return responseType.cast(inFlight.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+
+                throw e;
+            }
+        }
+
+        try {
+            T response = request.get();
+            shared.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            shared.completeExceptionally(e);
             throw e;
+        } finally {
+            inFlightRequests.remove(url, shared);
+        }
+    }
+
+    private <T> T getRevalidated(String url, Class<T> responseType) {
+        RevalidatedResponse cached = revalidatedResponses.get(url);
+        HttpHeaders headers = new HttpHeaders();
+        if (cached != null) {
+            headers.setIfNoneMatch(cached.etag);
+        }
+
+        ResponseEntity<T> response;
+        try {
+            response = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), responseType);
+        } catch (HttpStatusCodeException e) {
+            revalidatedResponses.remove(url);
+            throw e;
+        }
+
+        if (response.getStatusCode() == HttpStatus.NOT_MODIFIED && cached != null) {
+            return responseType.cast(cached.body);
+        }
+
+        String etag = response.getHeaders().getETag();
+        if (etag != null && response.getBody() != null) {
+            revalidatedResponses.put(url, new RevalidatedResponse(etag, response.getBody()));
+        } else {
+            revalidatedResponses.remove(url);
+        }
+
+        return response.getBody();
+    }
+
+    private ObjectMapper objectMapper() {
+        return restTemplate.getMessageConverters().stream()
+                .filter(MappingJackson2HttpMessageConverter.class::isInstance)
+                .map(converter -> ((MappingJackson2HttpMessageConverter) converter).getObjectMapper())
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("The RestTemplate has no JSON message converter"));
+    }
+
+    private static final class RevalidatedResponse {
+        private final String etag;
+        private final Object body;
+
+        private RevalidatedResponse(String etag, Object body) {
+            this.etag = etag;
+            this.body = body;
         }
     }
 }
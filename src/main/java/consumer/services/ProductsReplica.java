@@ -0,0 +1,172 @@
+package consumer.services;
+
+import consumer.contracts.ProductChanges;
+import consumer.contracts.ProductResponse;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+/**
+ * Local copy of the provider's catalog, kept up to date from the change feed.
+ * <p>
+ * Products are only ever added, so the replica downloads the catalog once, starting at sequence 0, and after
+ * that only asks for the products created since the last sequence it applied. Reads first catch up with the
+ * provider when the last refresh is older than {@code maxStaleness}, so what they return is never older than
+ * that; when the provider cannot be reached, they fail instead of returning staler data. Products pushed by a
+ * {@link ProductEventsSubscriber} are applied as they arrive, and its heartbeats keep the replica fresh without
+ * polling.
+ * <p>
+ * Sequences only hold within one catalog of the provider, e.g. an in-memory provider seeds a new one on every
+ * restart. When the change feed names another catalog than the one the replica holds, or rejects its sequence,
+ * the replica drops what it has and downloads the catalog again from sequence 0.
+ */
+public class ProductsReplica {
+    private final ProductsFetcher productsFetcher;
+    private final int pageSize;
+    private final long maxStalenessNanos;
+    private final LongSupplier nanoClock;
+
+    private final List<ProductResponse> products = new ArrayList<>();
+    private final Map<UUID, ProductResponse> productsById = new HashMap<>();
+    private UUID catalogId;
+    private long sequence;
+    private long refreshedAt;
+    private boolean refreshed;
+
+    public ProductsReplica(ProductsFetcher productsFetcher, int pageSize, Duration maxStaleness) {
+        this(productsFetcher, pageSize, maxStaleness, System::nanoTime);
+    }
+
+    ProductsReplica(ProductsFetcher productsFetcher, int pageSize, Duration maxStaleness, LongSupplier nanoClock) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize must be positive");
+        }
+
+        this.productsFetcher = productsFetcher;
+        this.pageSize = pageSize;
+        this.maxStalenessNanos = maxStaleness.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    public synchronized List<String> getProductNames() {
+        refreshIfStale();
+
+        List<String> names = new ArrayList<>(products.size());
+        for (ProductResponse product : products) {
+            names.add(product.getName());
+        }
+
+        return names;
+    }
+
+    public synchronized Optional<ProductResponse> getProduct(UUID id) {
+        refreshIfStale();
+
+        return Optional.ofNullable(productsById.get(id));
+    }
+
+    /**
+     * Applies every product created since the last refresh.
+     */
+    public synchronized void refresh() {
+        long started = nanoClock.getAsLong();
+
+        ProductChanges changes;
+        do {
+            try {
+                changes = productsFetcher.getChanges(sequence, pageSize);
+            } catch (HttpClientErrorException.BadRequest e) {
+                if (sequence == 0) {
+                    throw e;
+                }
+
+                reset();
+                changes = productsFetcher.getChanges(sequence, pageSize);
+            }
+
+            if (catalogId != null && !catalogId.equals(changes.getCatalogId())) {
+                reset();
+                changes = productsFetcher.getChanges(sequence, pageSize);
+            }
+
+            catalogId = changes.getCatalogId();
+            ProductResponse[] created = changes.getProducts() == null ? new ProductResponse[0] : changes.getProducts();
+            for (ProductResponse product : created) {
+                add(product);
+            }
+            sequence = changes.getSequence();
+        } while (changes.getProducts() != null && changes.getProducts().length == pageSize);
+
+        refreshedAt = started;
+        refreshed = true;
+    }
+
+    /**
+     * Applies products pushed by the provider, the ones created right before {@code sequence} in the catalog
+     * {@code catalogId}. Products already applied are skipped; when some before them were missed, or they belong
+     * to another catalog, the replica catches up from the change feed.
+     */
+    public synchronized void apply(UUID catalogId, long sequence, ProductResponse[] created) {
+        long first = sequence - created.length;
+        if (!catalogId.equals(this.catalogId) || first > this.sequence) {
+            refresh();
+            return;
+        }
+
+        for (int i = (int) Math.max(0, this.sequence - first); i < created.length; i++) {
+            add(created[i]);
+        }
+        this.sequence = Math.max(this.sequence, sequence);
+    }
+
+    /**
+     * Records that the provider had no products after {@code sequence} of the catalog {@code catalogId} just now,
+     * which makes the replica fresh when it has them all.
+     */
+    public synchronized void confirm(UUID catalogId, long sequence) {
+        if (catalogId.equals(this.catalogId) && this.sequence >= sequence) {
+            refreshedAt = nanoClock.getAsLong();
+            refreshed = true;
+        }
+    }
+
+    public synchronized long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * The catalog the replica holds, or {@code null} before the first refresh.
+     */
+    public synchronized UUID getCatalogId() {
+        return catalogId;
+    }
+
+    /**
+     * Drops every product, so that the next read downloads the catalog again.
+     */
+    public synchronized void reset() {
+        products.clear();
+        productsById.clear();
+        catalogId = null;
+        sequence = 0;
+        refreshed = false;
+    }
+
+    private void add(ProductResponse product) {
+        products.add(product);
+        productsById.put(product.getId(), product);
+    }
+
+    private void refreshIfStale() {
+        if (!refreshed || nanoClock.getAsLong() - refreshedAt >= maxStalenessNanos) {
+            refresh();
+        }
+    }
+}
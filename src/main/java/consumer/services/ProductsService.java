@@ -1,34 +1,55 @@
 package consumer.services;
 
+import consumer.cache.ProductCache;
 import consumer.exceptions.InvalidProductIdException;
 import consumer.contracts.ProductResponse;
+import consumer.contracts.ProductsLookupResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ProductsService {
+    private static final int PAGE_SIZE = 500;
+    private static final int LOOKUP_SIZE = 500;
+    private static final List<String> NAME_FIELDS = List.of("id", "name");
+
     private final ProductsFetcher productsFetcher;
+    private final Optional<ProductsBatcher> productsBatcher;
+    private final ProductCache productCache;
+    private final Optional<ProductsReplica> productsReplica;
 
     public List<String> getProductNames() {
-        ProductResponse[] body = productsFetcher.getAllProducts();
-
-        if (body == null) {
-            return List.of();
+        if (productsReplica.isPresent()) {
+            return productsReplica.get().getProductNames();
         }
 
-        return Arrays.stream(body)
+        return productsFetcher.streamAllProducts(PAGE_SIZE, NAME_FIELDS)
                 .map(ProductResponse::getName)
                 .collect(Collectors.toList());
     }
 
     public String getProductName(UUID id) throws InvalidProductIdException {
-        ProductResponse product = productsFetcher.getProduct(id);
+        if (productsReplica.isPresent()) {
+            Optional<ProductResponse> product = productsReplica.get().getProduct(id);
+            if (product.isPresent()) {
+                return product.get().getName();
+            }
+        }
+
+        ProductResponse product = productCache.get(id, productId -> productsFetcher.getProduct(productId, NAME_FIELDS));
 
         if (product == null) {
             return null;
@@ -37,7 +58,42 @@ public class ProductsService {
         return product.getName();
     }
 
+    public Map<UUID, ProductNameResult> getProductNames(Collection<UUID> ids) {
+        List<UUID> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        Map<UUID, String> names = new HashMap<>();
+
+        for (int from = 0; from < distinctIds.size(); from += LOOKUP_SIZE) {
+            List<UUID> chunk = distinctIds.subList(from, Math.min(from + LOOKUP_SIZE, distinctIds.size()));
+            ProductsLookupResponse lookup = productsFetcher.getProducts(chunk);
+
+            if (lookup != null && lookup.getProducts() != null) {
+                for (ProductResponse product : lookup.getProducts()) {
+                    names.put(product.getId(), product.getName());
+                }
+            }
+        }
+
+        Map<UUID, ProductNameResult> results = new LinkedHashMap<>();
+        for (UUID id : distinctIds) {
+            results.put(id, names.containsKey(id) ? ProductNameResult.found(id, names.get(id)) : ProductNameResult.invalid(id));
+        }
+
+        return results;
+    }
+
     public ProductResponse createProduct(String name, String description, double price) {
-        return productsFetcher.createProduct(name, description, price);
+        if (productsBatcher.isEmpty()) {
+            return productsFetcher.createProduct(name, description, price);
+        }
+
+        try {
+            return productsBatcher.get().createProduct(name, description, price).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw e;
+        }
     }
 }
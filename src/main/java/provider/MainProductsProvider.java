@@ -2,10 +2,19 @@ package provider;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationListener;
 
 @SpringBootApplication
 public class MainProductsProvider {
     public static void main(String[] args) {
-        SpringApplication.run(MainProductsProvider.class, args);
+        SpringApplication springApplication = new SpringApplication(MainProductsProvider.class);
+        // Training runs for the AppCDS archive stop as soon as the application has started
+        springApplication.addListeners((ApplicationListener<ApplicationStartedEvent>) event -> {
+            if (event.getApplicationContext().getEnvironment().getProperty("startup.exit-after-start", Boolean.class, false)) {
+                System.exit(SpringApplication.exit(event.getApplicationContext()));
+            }
+        });
+        springApplication.run(args);
     }
 }
@@ -0,0 +1,26 @@
+package provider.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import provider.store.ProductStore;
+
+/**
+ * Catalog gauges. Request counts, errors and latencies per endpoint come from Spring Boot's
+ * {@code http.server.requests} timer; everything is scraped from {@code /actuator/prometheus}.
+ */
+@Configuration
+public class MetricsConfig {
+    @Bean
+    MeterBinder catalogMetrics(ProductStore productStore) {
+        return registry -> {
+            Gauge.builder("products.catalog.size", productStore, ProductStore::size)
+                    .description("Number of products in the catalog")
+                    .register(registry);
+            Gauge.builder("products.catalog.version", productStore, ProductStore::version)
+                    .description("Version of the catalog, incremented by every write")
+                    .register(registry);
+        };
+    }
+}
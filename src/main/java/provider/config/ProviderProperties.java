@@ -0,0 +1,59 @@
+package provider.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "provider")
+public class ProviderProperties {
+    private final Store store = new Store();
+    private final Persistence persistence = new Persistence();
+    private final Search search = new Search();
+    private final ResponseCache responseCache = new ResponseCache();
+    private final Events events = new Events();
+    private final Idempotency idempotency = new Idempotency();
+
+    @Data
+    public static class Store {
+        private Layout layout = Layout.OBJECTS;
+
+        public enum Layout {
+            OBJECTS,
+            COLUMNAR
+        }
+    }
+
+    @Data
+    public static class Persistence {
+        private boolean enabled = false;
+        private String directory = "data/products";
+        private Duration snapshotInterval = Duration.ofMinutes(5);
+        private int maxBatchSize = 1024;
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+    }
+
+    @Data
+    public static class Search {
+        private Duration textBudget = Duration.ofMillis(50);
+    }
+
+    @Data
+    public static class ResponseCache {
+        private boolean enabled = true;
+    }
+
+    @Data
+    public static class Events {
+        private int bufferSize = 256;
+        private Duration heartbeatInterval = Duration.ofSeconds(15);
+        private Duration timeout = Duration.ofMinutes(30);
+    }
+
+    @Data
+    public static class Idempotency {
+        private int maxKeys = 10_000;
+    }
+}
@@ -0,0 +1,36 @@
+package provider.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import provider.store.ColumnarProductStore;
+import provider.store.ConcurrentProductStore;
+import provider.store.ProductLog;
+import provider.store.ProductStore;
+
+import java.nio.file.Path;
+
+@Configuration
+@EnableConfigurationProperties(ProviderProperties.class)
+public class StoreConfig {
+    @Bean
+    ProductStore productStore(ProviderProperties properties) {
+        switch (properties.getStore().getLayout()) {
+            case COLUMNAR:
+                return new ColumnarProductStore();
+            case OBJECTS:
+            default:
+                return new ConcurrentProductStore();
+        }
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "provider.persistence", name = "enabled", havingValue = "true")
+    ProductLog productLog(ProviderProperties properties) {
+        ProviderProperties.Persistence persistence = properties.getPersistence();
+
+        return new ProductLog(Path.of(persistence.getDirectory()), persistence.getMaxBatchSize(),
+                persistence.getSegmentSize().toBytes(), persistence.getSnapshotInterval());
+    }
+}
@@ -0,0 +1,77 @@
+package provider.contracts;
+
+import java.util.List;
+import java.util.UUID;
+
+public class ProductChanges {
+    private List<ProviderProductResponse> products;
+    private long sequence;
+    private UUID catalogId;
+
+    public ProductChanges(List<ProviderProductResponse> products, long sequence, UUID catalogId) {
+        this.products = products;
+        this.sequence = sequence;
+        this.catalogId = catalogId;
+    }
+
+    public ProductChanges() {
+    }
+
+    public List<ProviderProductResponse> getProducts() {
+        return this.products;
+    }
+
+    public long getSequence() {
+        return this.sequence;
+    }
+
+    public UUID getCatalogId() {
+        return this.catalogId;
+    }
+
+    public void setProducts(List<ProviderProductResponse> products) {
+        this.products = products;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public void setCatalogId(UUID catalogId) {
+        this.catalogId = catalogId;
+    }
+
+    public boolean equals(final Object o) {
+        if (o == this) return true;
+        if (!(o instanceof ProductChanges)) return false;
+        final ProductChanges other = (ProductChanges) o;
+        if (!other.canEqual((Object) this)) return false;
+        final Object this$products = this.getProducts();
+        final Object other$products = other.getProducts();
+        if (this$products == null ? other$products != null : !this$products.equals(other$products)) return false;
+        if (this.getSequence() != other.getSequence()) return false;
+        final Object this$catalogId = this.getCatalogId();
+        final Object other$catalogId = other.getCatalogId();
+        return this$catalogId == null ? other$catalogId == null : this$catalogId.equals(other$catalogId);
+    }
+
+    protected boolean canEqual(final Object other) {
+        return other instanceof ProductChanges;
+    }
+
+    public int hashCode() {
+        final int PRIME = 59;
+        int result = 1;
+        final Object $products = this.getProducts();
+        result = result * PRIME + ($products == null ? 43 : $products.hashCode());
+        final long $sequence = this.getSequence();
+        result = result * PRIME + (int) ($sequence >>> 32 ^ $sequence);
+        final Object $catalogId = this.getCatalogId();
+        result = result * PRIME + ($catalogId == null ? 43 : $catalogId.hashCode());
+        return result;
+    }
+
+    public String toString() {
+        return "ProductChanges(products=" + this.getProducts() + ", sequence=" + this.getSequence() + ", catalogId=" + this.getCatalogId() + ")";
+    }
+}
@@ -0,0 +1,64 @@
+package provider.contracts;
+
+import java.util.List;
+import java.util.UUID;
+
+public class ProductsLookupResponse {
+    private List<ProviderProductResponse> products;
+    private List<UUID> missing;
+
+    public ProductsLookupResponse(List<ProviderProductResponse> products, List<UUID> missing) {
+        this.products = products;
+        this.missing = missing;
+    }
+
+    public ProductsLookupResponse() {
+    }
+
+    public List<ProviderProductResponse> getProducts() {
+        return this.products;
+    }
+
+    public List<UUID> getMissing() {
+        return this.missing;
+    }
+
+    public void setProducts(List<ProviderProductResponse> products) {
+        this.products = products;
+    }
+
+    public void setMissing(List<UUID> missing) {
+        this.missing = missing;
+    }
+
+    public boolean equals(final Object o) {
+        if (o == this) return true;
+        if (!(o instanceof ProductsLookupResponse)) return false;
+        final ProductsLookupResponse other = (ProductsLookupResponse) o;
+        if (!other.canEqual((Object) this)) return false;
+        final Object this$products = this.getProducts();
+        final Object other$products = other.getProducts();
+        if (this$products == null ? other$products != null : !this$products.equals(other$products)) return false;
+        final Object this$missing = this.getMissing();
+        final Object other$missing = other.getMissing();
+        return this$missing == null ? other$missing == null : this$missing.equals(other$missing);
+    }
+
+    protected boolean canEqual(final Object other) {
+        return other instanceof ProductsLookupResponse;
+    }
+
+    public int hashCode() {
+        final int PRIME = 59;
+        int result = 1;
+        final Object $products = this.getProducts();
+        result = result * PRIME + ($products == null ? 43 : $products.hashCode());
+        final Object $missing = this.getMissing();
+        result = result * PRIME + ($missing == null ? 43 : $missing.hashCode());
+        return result;
+    }
+
+    public String toString() {
+        return "ProductsLookupResponse(products=" + this.getProducts() + ", missing=" + this.getMissing() + ")";
+    }
+}
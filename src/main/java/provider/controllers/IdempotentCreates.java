@@ -0,0 +1,90 @@
+package provider.controllers;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import provider.config.ProviderProperties;
+import provider.contracts.CreateProduct;
+import provider.contracts.ProviderProductResponse;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * The products created under an {@code Idempotency-Key}, so that a client retrying a create it got no answer for
+ * gets the product created the first time instead of a second one. A create still running under the same key is
+ * waited for, and a failed create forgets its key so that it can be retried.
+ * <p>
+ * Keys live in memory, for the last {@code provider.idempotency.max-keys} creates. Reusing a key for a different
+ * product is rejected with 422.
+ */
+@Component
+public class IdempotentCreates {
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final Map<String, Entry> entries;
+
+    public IdempotentCreates(ProviderProperties properties) {
+        int maxKeys = properties.getIdempotency().getMaxKeys();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxKeys;
+            }
+        };
+    }
+
+    public ProviderProductResponse create(String key, CreateProduct createProduct, Supplier<ProviderProductResponse> create) {
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "An idempotency key must have 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+
+        Entry entry;
+        boolean first = false;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry == null) {
+                entry = new Entry(createProduct);
+                entries.put(key, entry);
+                first = true;
+            }
+        }
+
+        if (!entry.createProduct.equals(createProduct)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "The idempotency key was used for a different product");
+        }
+        if (first) {
+            try {
+                entry.product.complete(create.get());
+            } catch (RuntimeException e) {
+                synchronized (entries) {
+                    entries.remove(key, entry);
+                }
+                entry.product.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        try {
+            return entry.product.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw e;
+        }
+    }
+
+    private static final class Entry {
+        private final CreateProduct createProduct;
+        private final CompletableFuture<ProviderProductResponse> product = new CompletableFuture<>();
+
+        private Entry(CreateProduct createProduct) {
+            this.createProduct = createProduct;
+        }
+    }
+}
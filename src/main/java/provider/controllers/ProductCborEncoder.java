@@ -0,0 +1,50 @@
+package provider.controllers;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+import provider.contracts.ProviderProductResponse;
+
+import java.io.UncheckedIOException;
+import java.util.Set;
+
+/**
+ * Encodes products as CBOR. UUIDs are written as 16 raw bytes and prices as 8-byte doubles, and strings are
+ * length-prefixed, so large lists are smaller and cheaper to decode than JSON.
+ * <p>
+ * Every document starts with the CBOR self-describe tag, so it is recognized as CBOR without its content type.
+ */
+@Component
+public class ProductCborEncoder {
+    private final ObjectMapper cborMapper;
+    private final ObjectMapper projectingMapper;
+
+    public ProductCborEncoder() {
+        this.cborMapper = Jackson2ObjectMapperBuilder.cbor()
+                .factory(CBORFactory.builder().enable(CBORGenerator.Feature.WRITE_TYPE_HEADER).build())
+                .build();
+        this.projectingMapper = cborMapper.copy().addMixIn(ProviderProductResponse.class, ProductJsonCache.Projection.class);
+    }
+
+    /**
+     * Encodes a product or a list of products with only the given fields, or with all of them when
+     * {@code fields} is {@code null}.
+     */
+    public byte[] encode(Object products, Set<String> fields) {
+        ObjectWriter writer = fields == null
+                ? cborMapper.writer()
+                : projectingMapper.writer(new SimpleFilterProvider()
+                        .addFilter(ProductJsonCache.PROJECTION_FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(fields)));
+        try {
+            return writer.writeValueAsBytes(products);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException("Could not encode products", e);
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package provider.controllers;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import provider.config.ProviderProperties;
+import provider.contracts.ProviderProductResponse;
+import provider.services.ProductsService;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes created products to server-sent event subscribers.
+ * <p>
+ * Every create is sent as one {@code products} event holding the JSON array of the created products. Its id is
+ * the catalog id and the sequence after them (see {@link ProductsController#getChanges}), as
+ * {@code <catalogId>:<sequence>}, so an id from a catalog the provider no longer has is never mistaken for a
+ * position in the current one. A subscriber that resumes with a {@code Last-Event-ID} is first sent the products
+ * it missed, read back from the store. A {@code heartbeat} event carrying the event id of the current sequence
+ * follows the missed products and is then queued every {@code heartbeat-interval}, so a subscriber knows when it
+ * has caught up and an idle one knows it has not missed anything.
+ * <p>
+ * Events are queued per subscriber and sent by a thread of their own, so a slow subscriber never delays the
+ * others or the create. A subscriber whose queue of {@code buffer-size} events is full is disconnected and its
+ * queue dropped; it can resume from its last event id.
+ */
+@Component
+public class ProductEvents implements DisposableBean {
+    public static final String PRODUCTS_EVENT = "products";
+    public static final String HEARTBEAT_EVENT = "heartbeat";
+
+    private static final int REPLAY_PAGE_SIZE = 1000;
+    private static final char EVENT_ID_SEPARATOR = ':';
+
+    private final ProductsService productsService;
+    private final ProductJsonCache productJsonCache;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService senders;
+    private final ScheduledExecutorService heartbeats;
+    private final Object publishLock = new Object();
+    private long published;
+
+    public ProductEvents(ProductsService productsService, ProductJsonCache productJsonCache, ProviderProperties properties) {
+        ProviderProperties.Events events = properties.getEvents();
+        if (events.getBufferSize() < 1) {
+            throw new IllegalArgumentException("provider.events.buffer-size must be positive");
+        }
+
+        this.productsService = productsService;
+        this.productJsonCache = productJsonCache;
+        this.bufferSize = events.getBufferSize();
+        this.timeoutMillis = events.getTimeout().toMillis();
+        this.published = productsService.getProducts().size();
+        this.senders = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "product-events");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "product-events-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long interval = events.getHeartbeatInterval().toNanos();
+        if (interval > 0) {
+            heartbeats.scheduleAtFixedRate(this::heartbeat, interval, interval, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Subscribes to the products created after {@code lastEventId}, or from now on when it is {@code null}.
+     */
+    public SseEmitter subscribe(Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(subscriber::remove);
+        emitter.onTimeout(subscriber::remove);
+        emitter.onError(error -> subscriber.remove());
+
+        synchronized (publishLock) {
+            publishCreated();
+            subscriber.replayFrom = lastEventId == null ? published : Math.min(lastEventId, published);
+            subscriber.replayTo = published;
+            subscriber.queue.add(new Event(published, null));
+            subscribers.add(subscriber);
+        }
+
+        subscriber.schedule();
+        return emitter;
+    }
+
+    /**
+     * Queues the products created since the last call for every subscriber. Called after every create.
+     */
+    public void publish() {
+        synchronized (publishLock) {
+            publishCreated();
+        }
+    }
+
+    /**
+     * Returns the sequence of an event id of the current catalog, or -1 for a malformed id or one of another
+     * catalog.
+     */
+    public long getSequence(String eventId) {
+        int separator = eventId.lastIndexOf(EVENT_ID_SEPARATOR);
+        if (separator < 0 || !eventId.substring(0, separator).equals(String.valueOf(productsService.getCatalogId()))) {
+            return -1;
+        }
+
+        try {
+            return Long.parseLong(eventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void destroy() {
+        heartbeats.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.disconnect();
+        }
+        senders.shutdown();
+    }
+
+    private void publishCreated() {
+        int size = productsService.getProducts().size();
+        if (size <= published) {
+            return;
+        }
+
+        if (!subscribers.isEmpty()) {
+            List<ProviderProductResponse> created = productsService.getProducts((int) published, (int) (size - published));
+            Event event = new Event(published + created.size(), productJsonCache.getArray(created));
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(event);
+            }
+        }
+
+        published = size;
+    }
+
+    private String eventId(long sequence) {
+        return String.valueOf(productsService.getCatalogId()) + EVENT_ID_SEPARATOR + sequence;
+    }
+
+    private void heartbeat() {
+        synchronized (publishLock) {
+            publishCreated();
+            Event event = new Event(published, null);
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(event);
+            }
+        }
+    }
+
+    private static final class Event {
+        private final long sequence;
+        private final byte[] products;
+
+        private Event(long sequence, byte[] products) {
+            this.sequence = sequence;
+            this.products = products;
+        }
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<Event> queue = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+        private long replayFrom;
+        private long replayTo;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void offer(Event event) {
+            if (closed) {
+                return;
+            }
+
+            if (!queue.offer(event)) {
+                disconnect();
+                return;
+            }
+
+            schedule();
+        }
+
+        private void schedule() {
+            if (!closed && draining.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RuntimeException e) {
+                    disconnect();
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                do {
+                    replay();
+                    Event event;
+                    while (!closed && (event = queue.poll()) != null) {
+                        send(event);
+                    }
+                    draining.set(false);
+                } while (!closed && !queue.isEmpty() && draining.compareAndSet(false, true));
+            } catch (IOException | RuntimeException e) {
+                remove();
+            }
+        }
+
+        private void replay() throws IOException {
+            while (!closed && replayFrom < replayTo) {
+                int limit = (int) Math.min(REPLAY_PAGE_SIZE, replayTo - replayFrom);
+                List<ProviderProductResponse> page = productsService.getProducts((int) replayFrom, limit);
+                if (page.isEmpty()) {
+                    replayFrom = replayTo;
+                    return;
+                }
+
+                replayFrom += page.size();
+                send(new Event(replayFrom, productJsonCache.getArray(page)));
+            }
+        }
+
+        private void send(Event event) throws IOException {
+            if (event.products == null) {
+                emitter.send(SseEmitter.event()
+                        .name(HEARTBEAT_EVENT)
+                        .data(eventId(event.sequence), MediaType.TEXT_PLAIN));
+                return;
+            }
+
+            emitter.send(SseEmitter.event()
+                    .id(eventId(event.sequence))
+                    .name(PRODUCTS_EVENT)
+                    .data(event.products, MediaType.APPLICATION_JSON));
+        }
+
+        /**
+         * Completes the response on a sender thread: completing waits for a send in progress, which for a
+         * subscriber that stopped reading only ends when the write times out.
+         */
+        private void disconnect() {
+            remove();
+            try {
+                senders.execute(() -> {
+                    try {
+                        emitter.complete();
+                    } catch (IllegalStateException e) {
+                        // Already completed by the container
+                    }
+                });
+            } catch (RuntimeException e) {
+                // Shutting down, the container completes the response
+            }
+        }
+
+        private void remove() {
+            closed = true;
+            subscribers.remove(this);
+            queue.clear();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package provider.controllers;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.stereotype.Component;
+import provider.config.ProviderProperties;
+import provider.contracts.ProviderProductResponse;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Serialized JSON of the products, written when a product is created (or first read, for products loaded at
+ * startup) so that reads copy bytes instead of running Jackson again. The bytes come from the same
+ * {@link ObjectMapper} as the message converters, so responses are identical either way.
+ * <p>
+ * Products never change, but an entry is only used while it still describes the product being written, so a
+ * different product under a known id is serialized again. Every entry keeps its product, which would undo the
+ * savings of the columnar layout, so the cache is off with that layout whatever
+ * {@code provider.response-cache.enabled} says.
+ * <p>
+ * Projections to a subset of the {@link #FIELDS} are serialized on every request.
+ */
+@Component
+public class ProductJsonCache {
+    public static final List<String> FIELDS = List.of("id", "name", "description", "price", "storeName", "storeId");
+
+    static final String PROJECTION_FILTER = "projection";
+
+    private final ObjectMapper objectMapper;
+    private final ObjectMapper projectingMapper;
+    private final boolean enabled;
+    private final ConcurrentMap<UUID, Entry> entries = new ConcurrentHashMap<>();
+
+    public ProductJsonCache(ObjectMapper objectMapper, ProviderProperties properties) {
+        this.objectMapper = objectMapper;
+        this.projectingMapper = objectMapper.copy().addMixIn(ProviderProductResponse.class, Projection.class);
+        this.enabled = properties.getResponseCache().isEnabled()
+                && properties.getStore().getLayout() != ProviderProperties.Store.Layout.COLUMNAR;
+    }
+
+    public byte[] get(ProviderProductResponse product) {
+        Entry entry = entries.get(product.getId());
+        if (entry != null && (entry.product == product || entry.product.equals(product))) {
+            return entry.json;
+        }
+
+        return put(product);
+    }
+
+    /**
+     * Returns only the given fields of the product, or all of them when {@code fields} is {@code null}.
+     */
+    public byte[] get(ProviderProductResponse product, Set<String> fields) {
+        if (fields == null) {
+            return get(product);
+        }
+
+        return serialize(projectingWriter(fields), product);
+    }
+
+    public byte[] put(ProviderProductResponse product) {
+        byte[] json = serialize(product);
+        if (enabled) {
+            entries.put(product.getId(), new Entry(product, json));
+        }
+
+        return json;
+    }
+
+    /**
+     * Returns the products as a JSON array built from their cached fragments.
+     */
+    public byte[] getArray(List<ProviderProductResponse> products) {
+        byte[][] fragments = new byte[products.size()][];
+        int length = 2 + Math.max(0, products.size() - 1);
+        for (int i = 0; i < fragments.length; i++) {
+            fragments[i] = get(products.get(i));
+            length += fragments[i].length;
+        }
+
+        byte[] json = new byte[length];
+        int offset = 0;
+        json[offset++] = '[';
+        for (int i = 0; i < fragments.length; i++) {
+            if (i > 0) {
+                json[offset++] = ',';
+            }
+            System.arraycopy(fragments[i], 0, json, offset, fragments[i].length);
+            offset += fragments[i].length;
+        }
+        json[offset] = ']';
+
+        return json;
+    }
+
+    /**
+     * Returns the products as a JSON array of only the given fields, or of all of them when {@code fields} is
+     * {@code null}.
+     */
+    public byte[] getArray(List<ProviderProductResponse> products, Set<String> fields) {
+        if (fields == null) {
+            return getArray(products);
+        }
+
+        return serialize(projectingWriter(fields), products);
+    }
+
+    private byte[] serialize(ProviderProductResponse product) {
+        return serialize(objectMapper.writer(), product);
+    }
+
+    private ObjectWriter projectingWriter(Set<String> fields) {
+        return projectingMapper.writer(new SimpleFilterProvider()
+                .addFilter(PROJECTION_FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(fields)));
+    }
+
+    private static byte[] serialize(ObjectWriter writer, Object value) {
+        try {
+            return writer.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException("Could not serialize products", e);
+        }
+    }
+
+    @JsonFilter(PROJECTION_FILTER)
+    interface Projection {
+    }
+
+    private static final class Entry {
+        private final ProviderProductResponse product;
+        private final byte[] json;
+
+        private Entry(ProviderProductResponse product, byte[] json) {
+            this.product = product;
+            this.json = json;
+        }
+    }
+}
@@ -1,42 +1,358 @@
 package provider.controllers;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import provider.config.ProviderProperties;
 import provider.contracts.CreateProduct;
+import provider.contracts.ProductChanges;
+import provider.contracts.ProductsLookupResponse;
 import provider.contracts.ProviderProductResponse;
 import provider.services.ProductsService;
+import provider.services.TextSearchResult;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Validated
 @RequiredArgsConstructor
 @RestController
 @RequestMapping("/api/products")
 public class ProductsController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String NDJSON = "application/x-ndjson";
+    public static final String PARTIAL_RESULTS_HEADER = "X-Partial-Results";
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int DEFAULT_TEXT_SEARCH_SIZE = 10;
+    private static final int MAX_QUERY_LENGTH = 256;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final int MAX_LOOKUP_SIZE = 1000;
+    private static final int STREAM_FLUSH_INTERVAL = 256;
+
     private final ProductsService productsService;
+    private final ProviderProperties properties;
+    private final ProductJsonCache productJsonCache;
+    private final ProductCborEncoder productCborEncoder;
+    private final ProductEvents productEvents;
+    private final IdempotentCreates idempotentCreates;
 
     @GetMapping()
-    public List<ProviderProductResponse> getProducts() {
-        return productsService.getProducts();
+    public ResponseEntity<byte[]> getProducts(@RequestParam(required = false) String after,
+                                              @RequestParam(required = false) Integer limit,
+                                              @RequestParam(required = false) String fields,
+                                              WebRequest request) {
+        return getProducts(after, limit, fields, MediaType.APPLICATION_JSON, request);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_CBOR_VALUE)
+    public ResponseEntity<byte[]> getProductsCbor(@RequestParam(required = false) String after,
+                                                  @RequestParam(required = false) Integer limit,
+                                                  @RequestParam(required = false) String fields,
+                                                  WebRequest request) {
+        return getProducts(after, limit, fields, MediaType.APPLICATION_CBOR, request);
+    }
+
+    /**
+     * Answers a request whose ETag still matches with a 304 before anything is encoded.
+     */
+    private ResponseEntity<byte[]> getProducts(String after, Integer limit, String fields, MediaType format, WebRequest request) {
+        Set<String> projection = parseFields(fields);
+        int offset = parseCursor(after);
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        List<ProviderProductResponse> products = productsService.getProducts();
+        String etag = productsEtag(productsService.getCatalogId(), products.size(), projection, format);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+
+        if (after == null && limit == null) {
+            return encoded(ResponseEntity.ok().eTag(etag), format, encode(products, projection, format));
+        }
+
+        List<ProviderProductResponse> page = productsService.getProducts(offset, pageSize + 1);
+        if (page.size() <= pageSize) {
+            return encoded(ResponseEntity.ok().eTag(etag), format, encode(page, projection, format));
+        }
+
+        return encoded(ResponseEntity.ok()
+                        .eTag(etag)
+                        .header(NEXT_CURSOR_HEADER, String.valueOf(offset + pageSize)),
+                format, encode(page.subList(0, pageSize), projection, format));
+    }
+
+    @GetMapping(produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamProducts(@RequestParam(required = false) String after,
+                                                                @RequestParam(required = false) String fields) {
+        int offset = parseCursor(after);
+        Set<String> projection = parseFields(fields);
+
+        List<ProviderProductResponse> products = productsService.getProducts();
+
+        StreamingResponseBody body = outputStream -> {
+            for (int i = offset; i < products.size(); i++) {
+                outputStream.write(productJsonCache.get(products.get(i), projection));
+                outputStream.write('\n');
+
+                if ((i - offset + 1) % STREAM_FLUSH_INTERVAL == 0) {
+                    outputStream.flush();
+                }
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
+    }
+
+    /**
+     * Returns the products created after {@code since}, in creation order, with the sequence to ask for next.
+     * Sequences are store positions: products are only ever appended, so a replica that applies every page in
+     * order ends up with the whole catalog. They only hold within the catalog named by the returned catalog id;
+     * a replica holding another one must start over from 0.
+     */
+    @GetMapping("/changes")
+    public ProductChanges getChanges(@RequestParam long since, @RequestParam(required = false) Integer limit) {
+        int pageSize = limit == null ? MAX_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        int size = productsService.getProducts().size();
+        if (since < 0 || since > size) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "since must be between 0 and the current sequence " + size);
+        }
+
+        List<ProviderProductResponse> changes = productsService.getProducts((int) since, pageSize);
+        return new ProductChanges(changes, since + changes.size(), productsService.getCatalogId());
+    }
+
+    /**
+     * Streams the products created from now on, or after the {@code Last-Event-ID} when resuming.
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        Long resumeFrom = null;
+        if (lastEventId != null) {
+            int size = productsService.getProducts().size();
+            resumeFrom = productEvents.getSequence(lastEventId);
+            if (resumeFrom < 0 || resumeFrom > size) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Last-Event-ID must be an event id of the current catalog, up to sequence " + size);
+            }
+        }
+
+        return productEvents.subscribe(resumeFrom);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<byte[]> searchProducts(@RequestParam(required = false) Integer storeId,
+                                                 @RequestParam(required = false) Double minPrice,
+                                                 @RequestParam(required = false) Double maxPrice,
+                                                 @RequestParam(required = false) Integer limit) {
+        if (storeId == null && minPrice == null && maxPrice == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At least one of storeId, minPrice or maxPrice is required");
+        }
+
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "minPrice must not be greater than maxPrice");
+        }
+
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        return json(ResponseEntity.ok(), productJsonCache.getArray(productsService.searchProducts(storeId, minPrice, maxPrice, pageSize)));
+    }
+
+    @GetMapping("/search/text")
+    public ResponseEntity<byte[]> searchProductsByText(@RequestParam String q,
+                                                       @RequestParam(required = false) Integer limit) {
+        if (q.isBlank() || q.length() > MAX_QUERY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "q must contain between 1 and " + MAX_QUERY_LENGTH + " characters");
+        }
+
+        int pageSize = limit == null ? DEFAULT_TEXT_SEARCH_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        TextSearchResult result = productsService.searchProductsByText(q, pageSize, properties.getSearch().getTextBudget());
+        if (result.isPartial()) {
+            return json(ResponseEntity.ok().header(PARTIAL_RESULTS_HEADER, "true"), productJsonCache.getArray(result.getProducts()));
+        }
+
+        return json(ResponseEntity.ok(), productJsonCache.getArray(result.getProducts()));
     }
 
     @GetMapping("{id}")
-    public ResponseEntity<ProviderProductResponse> getProduct(@PathVariable UUID id) {
-        return productsService.getProduct(id)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<byte[]> getProduct(@PathVariable UUID id, @RequestParam(required = false) String fields, WebRequest request) {
+        return getProduct(id, fields, MediaType.APPLICATION_JSON, request);
+    }
+
+    @GetMapping(value = "{id}", produces = MediaType.APPLICATION_CBOR_VALUE)
+    public ResponseEntity<byte[]> getProductCbor(@PathVariable UUID id, @RequestParam(required = false) String fields, WebRequest request) {
+        return getProduct(id, fields, MediaType.APPLICATION_CBOR, request);
+    }
+
+    private ResponseEntity<byte[]> getProduct(UUID id, String fields, MediaType format, WebRequest request) {
+        Set<String> projection = parseFields(fields);
+
+        Optional<ProviderProductResponse> product = productsService.getProduct(id);
+        if (product.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String etag = productEtag(id, projection, format);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+
+        return encoded(ResponseEntity.ok().eTag(etag), format, MediaType.APPLICATION_CBOR.equals(format)
+                ? productCborEncoder.encode(product.get(), projection)
+                : productJsonCache.get(product.get(), projection));
+    }
+
+    @PostMapping("/lookup")
+    public ProductsLookupResponse lookupProducts(@RequestBody List<UUID> ids) {
+        if (ids.size() > MAX_LOOKUP_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A lookup can contain at most " + MAX_LOOKUP_SIZE + " ids");
+        }
+
+        List<ProviderProductResponse> found = productsService.getProductsByIds(ids);
+        Set<UUID> foundIds = found.stream()
+                .map(ProviderProductResponse::getId)
+                .collect(Collectors.toSet());
+        List<UUID> missing = ids.stream()
+                .distinct()
+                .filter(id -> !foundIds.contains(id))
+                .collect(Collectors.toList());
+
+        return new ProductsLookupResponse(found, missing);
     }
 
     @GetMapping("/find/{index}")
-    public ProviderProductResponse getProductByIndex(@PathVariable int index) {
-        return productsService.getProductByIndex(index);
+    public ResponseEntity<byte[]> getProductByIndex(@PathVariable int index) {
+        return json(ResponseEntity.ok(), productJsonCache.get(productsService.getProductByIndex(index)));
     }
 
     @PostMapping()
-    public ProviderProductResponse createProduct(@RequestBody CreateProduct createProduct) {
-        return productsService.createProduct(createProduct);
+    public ResponseEntity<byte[]> createProduct(@RequestBody CreateProduct createProduct,
+                                                @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        ProviderProductResponse product = idempotencyKey == null
+                ? productsService.createProduct(createProduct)
+                : idempotentCreates.create(idempotencyKey, createProduct, () -> productsService.createProduct(createProduct));
+        byte[] created = productJsonCache.get(product);
+        productEvents.publish();
+
+        return json(ResponseEntity.ok(), created);
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<byte[]> createProducts(@RequestBody List<CreateProduct> createProducts) {
+        if (createProducts.size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A batch can contain at most " + MAX_BATCH_SIZE + " products");
+        }
+
+        List<ProviderProductResponse> created = productsService.createProducts(createProducts);
+        for (ProviderProductResponse product : created) {
+            productJsonCache.put(product);
+        }
+        productEvents.publish();
+
+        return json(ResponseEntity.ok(), productJsonCache.getArray(created));
+    }
+
+    private byte[] encode(List<ProviderProductResponse> products, Set<String> fields, MediaType format) {
+        if (MediaType.APPLICATION_CBOR.equals(format)) {
+            return productCborEncoder.encode(products, fields);
+        }
+
+        return productJsonCache.getArray(products, fields);
+    }
+
+    private static ResponseEntity<byte[]> json(ResponseEntity.BodyBuilder response, byte[] body) {
+        return encoded(response, MediaType.APPLICATION_JSON, body);
+    }
+
+    private static ResponseEntity<byte[]> encoded(ResponseEntity.BodyBuilder response, MediaType format, byte[] body) {
+        return response.contentType(format).body(body);
+    }
+
+    /**
+     * Names the list by its catalog and size: products are only ever appended, so the two identify its content
+     * across restarts and instances, where a count of writes would not.
+     */
+    private static String productsEtag(UUID catalogId, int size, Set<String> fields, MediaType format) {
+        return "\"products-" + catalogId + "-" + size + etagSuffix(fields, format) + "\"";
+    }
+
+    private static String productEtag(UUID id, Set<String> fields, MediaType format) {
+        return "\"product-" + id + etagSuffix(fields, format) + "\"";
+    }
+
+    private static String etagSuffix(Set<String> fields, MediaType format) {
+        String suffix = MediaType.APPLICATION_CBOR.equals(format) ? ";cbor" : "";
+        if (fields == null) {
+            return suffix;
+        }
+
+        return suffix + ProductJsonCache.FIELDS.stream()
+                .filter(fields::contains)
+                .collect(Collectors.joining("+", ";", ""));
+    }
+
+    /**
+     * Parses a comma separated list of product fields. Returns {@code null}, meaning every field, when the
+     * parameter is absent or names all of them.
+     */
+    private static Set<String> parseFields(String fields) {
+        if (fields == null) {
+            return null;
+        }
+
+        Set<String> projection = new HashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (!ProductJsonCache.FIELDS.contains(name)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown field '" + name + "', fields must be a subset of " + ProductJsonCache.FIELDS);
+            }
+            projection.add(name);
+        }
+
+        return projection.size() == ProductJsonCache.FIELDS.size() ? null : projection;
+    }
+
+    private static int parseCursor(String cursor) {
+        if (cursor == null) {
+            return 0;
+        }
+
+        try {
+            int offset = Integer.parseInt(cursor);
+            if (offset >= 0) {
+                return offset;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + cursor);
     }
 }
@@ -3,6 +3,8 @@ package provider.services;
 import provider.contracts.CreateProduct;
 import provider.contracts.ProviderProductResponse;
 
+import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -10,9 +12,25 @@ import java.util.UUID;
 public interface ProductsService {
     List<ProviderProductResponse> getProducts();
 
+    List<ProviderProductResponse> getProducts(int offset, int limit);
+
     Optional<ProviderProductResponse> getProduct(UUID id);
 
+    List<ProviderProductResponse> getProductsByIds(Collection<UUID> ids);
+
     ProviderProductResponse createProduct(CreateProduct createProduct);
 
+    List<ProviderProductResponse> createProducts(List<CreateProduct> createProducts);
+
+    List<ProviderProductResponse> searchProducts(Integer storeId, Double minPrice, Double maxPrice, int limit);
+
+    TextSearchResult searchProductsByText(String query, int limit, Duration budget);
+
     ProviderProductResponse getProductByIndex(int index);
+
+    /**
+     * Identifies the catalog that store positions refer to. It changes when the provider starts over with a new
+     * catalog, after which positions from the old one mean nothing.
+     */
+    UUID getCatalogId();
 }
@@ -1,45 +1,209 @@
 package provider.services;
 
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import provider.contracts.CreateProduct;
 import provider.contracts.ProviderProductResponse;
+import provider.store.ConcurrentProductStore;
+import provider.store.ProductIndex;
+import provider.store.ProductLog;
+import provider.store.ProductStore;
+import provider.store.TextIndex;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+/**
+ * When a {@link ProductLog} is configured the products are restored from it on startup and every creation is
+ * appended to it. Created products are only added to the store and the indexes once they are durable, in log
+ * order, so readers never see a product that a crash could lose. Once an append has failed no more products are
+ * created, as the log no longer follows the store.
+ * <p>
+ * The catalog id is the id of the first product: it is restored with the catalog from the log and differs for a
+ * freshly seeded one.
+ */
 @Service
-@RequiredArgsConstructor
 public class ProductsServiceImpl implements ProductsService {
 
-    private final List<ProviderProductResponse> products = new ArrayList<>() {{
-                add(new ProviderProductResponse(UUID.randomUUID(), "product1", "description1", 1, "store 1", 55));
-                add(new ProviderProductResponse(UUID.randomUUID(), "product2", "description2", 2, "store 2", 66));
-                add(new ProviderProductResponse(UUID.randomUUID(), "product3", "description3", 3, "store 3", 77));
-    }};
+    private final ProductStore products;
+    private final Optional<ProductLog> productLog;
+    private final ProductIndex productIndex = new ProductIndex();
+    private final TextIndex textIndex = new TextIndex();
+    private final Object writeLock = new Object();
+    private final Object publishLock = new Object();
+    private final UUID catalogId;
+
+    private int nextPosition;
+    private volatile Throwable logFailure;
+
+    public ProductsServiceImpl() {
+        this(new ConcurrentProductStore(), Optional.empty());
+    }
+
+    @Autowired
+    public ProductsServiceImpl(ProductStore products, Optional<ProductLog> productLog) {
+        this.products = products;
+        this.productLog = productLog;
+
+        if (productLog.isPresent()) {
+            try {
+                List<ProviderProductResponse> recovered = productLog.get().recover();
+                products.addAll(recovered);
+                productIndex.addAll(0, recovered);
+                textIndex.addAll(0, recovered);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not recover the products", e);
+            }
+            productLog.get().scheduleSnapshots(products::snapshot);
+        }
+        nextPosition = products.size();
+
+        if (products.size() == 0) {
+            store(List.of(
+                    new ProviderProductResponse(UUID.randomUUID(), "product1", "description1", 1, "store 1", 55),
+                    new ProviderProductResponse(UUID.randomUUID(), "product2", "description2", 2, "store 2", 66),
+                    new ProviderProductResponse(UUID.randomUUID(), "product3", "description3", 3, "store 3", 77)));
+        }
+        catalogId = products.get(0).getId();
+    }
 
     @Override
     public List<ProviderProductResponse> getProducts() {
-        return products;
+        return products.snapshot();
+    }
+
+    @Override
+    public List<ProviderProductResponse> getProducts(int offset, int limit) {
+        List<ProviderProductResponse> snapshot = products.snapshot();
+        int from = Math.min(offset, snapshot.size());
+        int to = (int) Math.min((long) from + limit, snapshot.size());
+
+        return snapshot.subList(from, to);
     }
 
     @Override
     public Optional<ProviderProductResponse> getProduct(UUID id) {
-        return products.stream()
-                .filter(product -> product.getId().equals(id))
-                .findFirst();
+        return Optional.ofNullable(products.get(id));
+    }
+
+    @Override
+    public List<ProviderProductResponse> getProductsByIds(Collection<UUID> ids) {
+        List<ProviderProductResponse> found = new ArrayList<>(ids.size());
+        for (UUID id : new LinkedHashSet<>(ids)) {
+            ProviderProductResponse product = products.get(id);
+            if (product != null) {
+                found.add(product);
+            }
+        }
+
+        return found;
     }
 
     @Override
     public ProviderProductResponse createProduct(CreateProduct createProduct) {
-        ProviderProductResponse productResponse = new ProviderProductResponse(UUID.randomUUID(), createProduct.getName(),
-                createProduct.getDescription(), createProduct.getPrice(), null, 0);
+        ProviderProductResponse productResponse = toProduct(createProduct);
 
-        products.add(productResponse);
+        store(List.of(productResponse));
         return productResponse;
     }
 
+    @Override
+    public List<ProviderProductResponse> createProducts(List<CreateProduct> createProducts) {
+        List<ProviderProductResponse> productResponses = new ArrayList<>(createProducts.size());
+        for (CreateProduct createProduct : createProducts) {
+            productResponses.add(toProduct(createProduct));
+        }
+
+        store(productResponses);
+        return productResponses;
+    }
+
+    @Override
+    public List<ProviderProductResponse> searchProducts(Integer storeId, Double minPrice, Double maxPrice, int limit) {
+        List<ProviderProductResponse> found = new ArrayList<>();
+        if (limit < 1) {
+            return found;
+        }
+
+        productIndex.search(storeId, minPrice, maxPrice, position -> {
+            found.add(products.get(position));
+            return found.size() < limit;
+        });
+        return found;
+    }
+
+    @Override
+    public TextSearchResult searchProductsByText(String query, int limit, Duration budget) {
+        TextIndex.Result result = textIndex.search(query, limit, System.nanoTime() + budget.toNanos());
+
+        List<ProviderProductResponse> found = new ArrayList<>(result.getPositions().length);
+        for (int position : result.getPositions()) {
+            found.add(products.get(position));
+        }
+        return new TextSearchResult(found, !result.isComplete());
+    }
+
     @Override
     public ProviderProductResponse getProductByIndex(int index) {
         return products.get(index);
     }
+
+    @Override
+    public UUID getCatalogId() {
+        return catalogId;
+    }
+
+    private void store(List<ProviderProductResponse> productResponses) {
+        CompletableFuture<Void> published;
+        synchronized (writeLock) {
+            int position = nextPosition;
+            if (productLog.isEmpty()) {
+                nextPosition += productResponses.size();
+                publish(position, productResponses);
+                return;
+            }
+
+            if (logFailure != null) {
+                throw new IllegalStateException("The product log has failed, no products can be created", logFailure);
+            }
+
+            CompletableFuture<Void> durable = productLog.get().append(position, productResponses);
+            nextPosition += productResponses.size();
+            // The log completes appends in order on its writer thread, which publishes them in that order
+            published = durable
+                    .whenComplete((ignored, failure) -> {
+                        if (failure != null) {
+                            logFailure = failure;
+                        }
+                    })
+                    .thenRun(() -> publish(position, productResponses));
+        }
+
+        try {
+            published.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw e;
+        }
+    }
+
+    private void publish(int position, List<ProviderProductResponse> productResponses) {
+        synchronized (publishLock) {
+            products.addAll(productResponses);
+            productIndex.addAll(position, productResponses);
+            textIndex.addAll(position, productResponses);
+        }
+    }
+
+    private static ProviderProductResponse toProduct(CreateProduct createProduct) {
+        return new ProviderProductResponse(UUID.randomUUID(), createProduct.getName(),
+                createProduct.getDescription(), createProduct.getPrice(), null, 0);
+    }
 }
@@ -0,0 +1,23 @@
+package provider.services;
+
+import provider.contracts.ProviderProductResponse;
+
+import java.util.List;
+
+public class TextSearchResult {
+    private final List<ProviderProductResponse> products;
+    private final boolean partial;
+
+    public TextSearchResult(List<ProviderProductResponse> products, boolean partial) {
+        this.products = products;
+        this.partial = partial;
+    }
+
+    public List<ProviderProductResponse> getProducts() {
+        return products;
+    }
+
+    public boolean isPartial() {
+        return partial;
+    }
+}
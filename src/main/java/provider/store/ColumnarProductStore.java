@@ -0,0 +1,306 @@
+package provider.store;
+
+import provider.contracts.ProviderProductResponse;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Column-oriented product store for large catalogs.
+ * <p>
+ * Ids, prices and store ids live in primitive arrays, store names are dictionary encoded and names and
+ * descriptions are kept in an off-heap byte arena, so a stored product costs a few dozen bytes of heap and no
+ * objects at all. {@link ProviderProductResponse} instances are only created when a product is read.
+ * <p>
+ * Publication works like in {@link ConcurrentProductStore}: the writer fills everything past the current size
+ * and only then publishes the new size, so readers never lock.
+ */
+public class ColumnarProductStore implements ProductStore {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int ARENA_CHUNK_SIZE = 4 << 20;
+    private static final int NO_STORE_NAME = -1;
+    private static final int NULL_LENGTH = -1;
+
+    private final Map<String, Integer> storeNameCodes = new HashMap<>();
+    private int arenaOffset;
+
+    private volatile Columns columns = new Columns(INITIAL_CAPACITY);
+    private volatile String[] storeNames = new String[INITIAL_CAPACITY];
+    private volatile ByteBuffer[] arena = new ByteBuffer[0];
+    private volatile int size;
+    private volatile long version;
+
+    @Override
+    public synchronized void add(ProviderProductResponse product) {
+        addAll(List.of(product));
+    }
+
+    @Override
+    public synchronized void addAll(List<ProviderProductResponse> products) {
+        Columns current = columns;
+        int currentSize = size;
+        Set<UUID> batchIds = products.size() > 1 ? new HashSet<>() : null;
+        for (ProviderProductResponse product : products) {
+            if (current.find(product.getId(), currentSize) >= 0 || (batchIds != null && !batchIds.add(product.getId()))) {
+                throw new IllegalArgumentException("Duplicate product id: " + product.getId());
+            }
+        }
+
+        int newSize = currentSize + products.size();
+        if (newSize > current.capacity()) {
+            current = current.grow(Math.max(current.capacity() * 2, newSize), currentSize);
+            columns = current;
+        }
+
+        int position = currentSize;
+        for (ProviderProductResponse product : products) {
+            current.mostSignificantBits[position] = product.getId().getMostSignificantBits();
+            current.leastSignificantBits[position] = product.getId().getLeastSignificantBits();
+            current.prices[position] = product.getPrice();
+            current.storeIds[position] = product.getStoreId();
+            current.storeNameCodes[position] = encodeStoreName(product.getStoreName());
+            current.textAddresses[position] = writeText(product.getName(), product.getDescription());
+            current.insert(position);
+            position++;
+        }
+        size = newSize;
+        version = version + 1;
+    }
+
+    @Override
+    public ProviderProductResponse get(UUID id) {
+        int currentSize = size;
+        Columns current = columns;
+        int position = current.find(id, currentSize);
+
+        return position < 0 ? null : materialize(current, storeNames, arena, position);
+    }
+
+    @Override
+    public ProviderProductResponse get(int index) {
+        int currentSize = size;
+        if (index < 0 || index >= currentSize) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + currentSize);
+        }
+
+        return materialize(columns, storeNames, arena, index);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long version() {
+        return version;
+    }
+
+    @Override
+    public List<ProviderProductResponse> snapshot() {
+        int currentSize = size;
+        return new Snapshot(columns, storeNames, arena, currentSize);
+    }
+
+    private int encodeStoreName(String storeName) {
+        if (storeName == null) {
+            return NO_STORE_NAME;
+        }
+
+        Integer code = storeNameCodes.get(storeName);
+        if (code != null) {
+            return code;
+        }
+
+        code = storeNameCodes.size();
+        String[] names = storeNames;
+        if (code == names.length) {
+            names = Arrays.copyOf(names, names.length * 2);
+        }
+        names[code] = storeName;
+        storeNames = names;
+        storeNameCodes.put(storeName, code);
+
+        return code;
+    }
+
+    private long writeText(String name, String description) {
+        byte[] nameBytes = name == null ? null : name.getBytes(StandardCharsets.UTF_8);
+        byte[] descriptionBytes = description == null ? null : description.getBytes(StandardCharsets.UTF_8);
+        int length = Integer.BYTES * 2 + (nameBytes == null ? 0 : nameBytes.length)
+                + (descriptionBytes == null ? 0 : descriptionBytes.length);
+
+        ByteBuffer[] chunks = arena;
+        if (chunks.length == 0 || chunks[chunks.length - 1].capacity() - arenaOffset < length) {
+            chunks = Arrays.copyOf(chunks, chunks.length + 1);
+            chunks[chunks.length - 1] = ByteBuffer.allocateDirect(Math.max(ARENA_CHUNK_SIZE, length));
+            arena = chunks;
+            arenaOffset = 0;
+        }
+
+        ByteBuffer chunk = chunks[chunks.length - 1];
+        int offset = arenaOffset;
+        arenaOffset = putString(chunk, putString(chunk, offset, nameBytes), descriptionBytes);
+
+        return ((long) (chunks.length - 1) << 32) | offset;
+    }
+
+    private static int putString(ByteBuffer chunk, int offset, byte[] value) {
+        if (value == null) {
+            chunk.putInt(offset, NULL_LENGTH);
+            return offset + Integer.BYTES;
+        }
+
+        chunk.putInt(offset, value.length);
+        chunk.put(offset + Integer.BYTES, value);
+        return offset + Integer.BYTES + value.length;
+    }
+
+    private static ProviderProductResponse materialize(Columns columns, String[] storeNames, ByteBuffer[] arena, int position) {
+        long address = columns.textAddresses[position];
+        ByteBuffer chunk = arena[(int) (address >>> 32)];
+        int nameOffset = (int) address;
+        int nameLength = chunk.getInt(nameOffset);
+        int descriptionOffset = nameOffset + Integer.BYTES + Math.max(nameLength, 0);
+        int storeNameCode = columns.storeNameCodes[position];
+
+        return new ProviderProductResponse(
+                new UUID(columns.mostSignificantBits[position], columns.leastSignificantBits[position]),
+                getString(chunk, nameOffset),
+                getString(chunk, descriptionOffset),
+                columns.prices[position],
+                storeNameCode == NO_STORE_NAME ? null : storeNames[storeNameCode],
+                columns.storeIds[position]);
+    }
+
+    private static String getString(ByteBuffer chunk, int offset) {
+        int length = chunk.getInt(offset);
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        chunk.get(offset + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The per-product columns together with an open-addressing id index holding {@code position + 1}
+     * (0 marks an empty slot). The index is always at least twice as large as the capacity.
+     */
+    private static final class Columns {
+        private final long[] mostSignificantBits;
+        private final long[] leastSignificantBits;
+        private final double[] prices;
+        private final int[] storeIds;
+        private final int[] storeNameCodes;
+        private final long[] textAddresses;
+        private final int[] index;
+
+        private Columns(int capacity) {
+            this(new long[capacity], new long[capacity], new double[capacity], new int[capacity],
+                    new int[capacity], new long[capacity], new int[Integer.highestOneBit(capacity) * 4]);
+        }
+
+        private Columns(long[] mostSignificantBits, long[] leastSignificantBits, double[] prices, int[] storeIds,
+                        int[] storeNameCodes, long[] textAddresses, int[] index) {
+            this.mostSignificantBits = mostSignificantBits;
+            this.leastSignificantBits = leastSignificantBits;
+            this.prices = prices;
+            this.storeIds = storeIds;
+            this.storeNameCodes = storeNameCodes;
+            this.textAddresses = textAddresses;
+            this.index = index;
+        }
+
+        private int capacity() {
+            return prices.length;
+        }
+
+        private Columns grow(int capacity, int size) {
+            Columns grown = new Columns(
+                    Arrays.copyOf(mostSignificantBits, capacity),
+                    Arrays.copyOf(leastSignificantBits, capacity),
+                    Arrays.copyOf(prices, capacity),
+                    Arrays.copyOf(storeIds, capacity),
+                    Arrays.copyOf(storeNameCodes, capacity),
+                    Arrays.copyOf(textAddresses, capacity),
+                    new int[Integer.highestOneBit(capacity) * 4]);
+            for (int position = 0; position < size; position++) {
+                grown.insert(position);
+            }
+
+            return grown;
+        }
+
+        private void insert(int position) {
+            int mask = index.length - 1;
+            int slot = hash(mostSignificantBits[position], leastSignificantBits[position]) & mask;
+            while (index[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            index[slot] = position + 1;
+        }
+
+        private int find(UUID id, int size) {
+            long mostSignificant = id.getMostSignificantBits();
+            long leastSignificant = id.getLeastSignificantBits();
+            int mask = index.length - 1;
+
+            for (int slot = hash(mostSignificant, leastSignificant) & mask; ; slot = (slot + 1) & mask) {
+                int entry = index[slot];
+                if (entry == 0) {
+                    return -1;
+                }
+
+                int position = entry - 1;
+                if (position < size && mostSignificantBits[position] == mostSignificant
+                        && leastSignificantBits[position] == leastSignificant) {
+                    return position;
+                }
+            }
+        }
+
+        private static int hash(long mostSignificant, long leastSignificant) {
+            long hash = (mostSignificant ^ leastSignificant) * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32));
+        }
+    }
+
+    private static final class Snapshot extends AbstractList<ProviderProductResponse> implements RandomAccess {
+        private final Columns columns;
+        private final String[] storeNames;
+        private final ByteBuffer[] arena;
+        private final int size;
+
+        private Snapshot(Columns columns, String[] storeNames, ByteBuffer[] arena, int size) {
+            this.columns = columns;
+            this.storeNames = storeNames;
+            this.arena = arena;
+            this.size = size;
+        }
+
+        @Override
+        public ProviderProductResponse get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+
+            return materialize(columns, storeNames, arena, index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
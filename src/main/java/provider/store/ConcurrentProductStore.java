@@ -0,0 +1,116 @@
+package provider.store;
+
+import provider.contracts.ProviderProductResponse;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append-only product store with an id index and an insertion-ordered index.
+ * <p>
+ * Writers are serialized on the store monitor. Readers never lock: a product is first written into the
+ * positional array and only then made visible by publishing the new size, so every index below the size
+ * a reader observed is fully initialised and never changes again. The id index maps to positions and a lookup
+ * only returns positions below the size, so it cannot see part of a batch either.
+ */
+public class ConcurrentProductStore implements ProductStore {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Map<UUID, Integer> byId = new ConcurrentHashMap<>();
+    private volatile ProviderProductResponse[] byPosition = new ProviderProductResponse[INITIAL_CAPACITY];
+    private volatile int size;
+    private volatile long version;
+
+    @Override
+    public synchronized void add(ProviderProductResponse product) {
+        addAll(List.of(product));
+    }
+
+    @Override
+    public synchronized void addAll(List<ProviderProductResponse> products) {
+        Set<UUID> batchIds = products.size() > 1 ? new HashSet<>() : null;
+        for (ProviderProductResponse product : products) {
+            if (byId.containsKey(product.getId()) || (batchIds != null && !batchIds.add(product.getId()))) {
+                throw new IllegalArgumentException("Duplicate product id: " + product.getId());
+            }
+        }
+
+        ProviderProductResponse[] items = byPosition;
+        int newSize = size + products.size();
+        if (newSize > items.length) {
+            items = Arrays.copyOf(items, Math.max(items.length * 2, newSize));
+            byPosition = items;
+        }
+
+        int position = size;
+        for (ProviderProductResponse product : products) {
+            items[position] = product;
+            byId.put(product.getId(), position++);
+        }
+        size = newSize;
+        version = version + 1;
+    }
+
+    @Override
+    public ProviderProductResponse get(UUID id) {
+        Integer position = byId.get(id);
+        return position == null || position >= size ? null : byPosition[position];
+    }
+
+    @Override
+    public ProviderProductResponse get(int index) {
+        int currentSize = size;
+        if (index < 0 || index >= currentSize) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + currentSize);
+        }
+
+        return byPosition[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long version() {
+        return version;
+    }
+
+    @Override
+    public List<ProviderProductResponse> snapshot() {
+        int currentSize = size;
+        return new Snapshot(byPosition, currentSize);
+    }
+
+    private static final class Snapshot extends AbstractList<ProviderProductResponse> implements RandomAccess {
+        private final ProviderProductResponse[] items;
+        private final int size;
+
+        private Snapshot(ProviderProductResponse[] items, int size) {
+            this.items = items;
+            this.size = size;
+        }
+
+        @Override
+        public ProviderProductResponse get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+
+            return items[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package provider.store;
+
+import provider.contracts.ProviderProductResponse;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+final class ProductCodec {
+    private static final int NULL_LENGTH = -1;
+
+    private ProductCodec() {
+    }
+
+    static byte[] encode(ProviderProductResponse product) {
+        byte[] name = bytes(product.getName());
+        byte[] description = bytes(product.getDescription());
+        byte[] storeName = bytes(product.getStoreName());
+
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES * 2 + Double.BYTES + Integer.BYTES
+                + stringSize(name) + stringSize(description) + stringSize(storeName));
+        buffer.putLong(product.getId().getMostSignificantBits());
+        buffer.putLong(product.getId().getLeastSignificantBits());
+        buffer.putDouble(product.getPrice());
+        buffer.putInt(product.getStoreId());
+        putString(buffer, name);
+        putString(buffer, description);
+        putString(buffer, storeName);
+
+        return buffer.array();
+    }
+
+    static ProviderProductResponse decode(ByteBuffer buffer) {
+        UUID id = new UUID(buffer.getLong(), buffer.getLong());
+        double price = buffer.getDouble();
+        int storeId = buffer.getInt();
+        String name = getString(buffer);
+        String description = getString(buffer);
+        String storeName = getString(buffer);
+
+        return new ProviderProductResponse(id, name, description, price, storeName, storeId);
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int stringSize(byte[] value) {
+        return Integer.BYTES + (value == null ? 0 : value.length);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(NULL_LENGTH);
+            return;
+        }
+
+        buffer.putInt(value.length);
+        buffer.put(value);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Invalid string length " + length);
+        }
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
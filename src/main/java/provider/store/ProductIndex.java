@@ -0,0 +1,109 @@
+package provider.store;
+
+import provider.contracts.ProviderProductResponse;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.IntPredicate;
+
+/**
+ * Secondary indexes over store positions: a hash index on the store id and navigable price indexes, one over
+ * all products and one per store.
+ * <p>
+ * Positions must be added by a single writer, after the products themselves are in the store. Readers never
+ * lock and may briefly miss products that are already in the store but not yet indexed.
+ */
+public class ProductIndex {
+    private final ConcurrentMap<Integer, StoreEntry> byStoreId = new ConcurrentHashMap<>();
+    private final ConcurrentNavigableMap<Double, PositionList> byPrice = new ConcurrentSkipListMap<>();
+
+    public void addAll(int firstPosition, List<ProviderProductResponse> products) {
+        int position = firstPosition;
+        for (ProviderProductResponse product : products) {
+            StoreEntry store = byStoreId.computeIfAbsent(product.getStoreId(), storeId -> new StoreEntry());
+            store.positions.add(position);
+            store.byPrice.computeIfAbsent(product.getPrice(), price -> new PositionList()).add(position);
+            byPrice.computeIfAbsent(product.getPrice(), price -> new PositionList()).add(position);
+            position++;
+        }
+    }
+
+    /**
+     * Passes the positions of the matching products to {@code action} until it returns {@code false}. Without
+     * price bounds the positions come in store order, otherwise in ascending price order. At least one of the
+     * filters must be given.
+     */
+    public void search(Integer storeId, Double minPrice, Double maxPrice, IntPredicate action) {
+        if (storeId == null && minPrice == null && maxPrice == null) {
+            throw new IllegalArgumentException("At least one filter is required");
+        }
+
+        NavigableMap<Double, PositionList> prices = byPrice;
+        if (storeId != null) {
+            StoreEntry store = byStoreId.get(storeId);
+            if (store == null) {
+                return;
+            }
+
+            if (minPrice == null && maxPrice == null) {
+                store.positions.forEach(action);
+                return;
+            }
+
+            prices = store.byPrice;
+        }
+
+        double from = minPrice == null ? Double.NEGATIVE_INFINITY : minPrice;
+        double to = maxPrice == null ? Double.POSITIVE_INFINITY : maxPrice;
+        if (from > to) {
+            return;
+        }
+
+        for (PositionList positions : prices.subMap(from, true, to, true).values()) {
+            if (!positions.forEach(action)) {
+                return;
+            }
+        }
+    }
+
+    private static final class StoreEntry {
+        private final PositionList positions = new PositionList();
+        private final ConcurrentNavigableMap<Double, PositionList> byPrice = new ConcurrentSkipListMap<>();
+    }
+
+    /**
+     * Append-only list of positions, published the same way as the store: the new size is written last.
+     */
+    private static final class PositionList {
+        private volatile int[] positions = new int[2];
+        private volatile int size;
+
+        private void add(int position) {
+            int[] items = positions;
+            if (size == items.length) {
+                items = Arrays.copyOf(items, items.length * 2);
+                positions = items;
+            }
+
+            items[size] = position;
+            size = size + 1;
+        }
+
+        private boolean forEach(IntPredicate action) {
+            int currentSize = size;
+            int[] items = positions;
+            for (int i = 0; i < currentSize; i++) {
+                if (!action.test(items[i])) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+}
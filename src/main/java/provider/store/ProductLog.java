@@ -0,0 +1,581 @@
+package provider.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import provider.contracts.ProviderProductResponse;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead log of created products with periodic snapshots.
+ * <p>
+ * Appends are queued and written by a single writer thread, which fsyncs once for everything it drained from
+ * the queue (group commit) before completing the appends' futures. A snapshot holds the first N products in
+ * store order; recovery loads the latest intact snapshot and replays only the log records from position N on.
+ * Both are read through memory-mapped buffers. A torn or corrupt record ends the recovered prefix and the log
+ * is truncated there.
+ */
+public class ProductLog implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProductLog.class);
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private static final int SNAPSHOT_MAGIC = 0x50524f44;
+    private static final int SNAPSHOTS_TO_KEEP = 2;
+    private static final int RECORD_HEADER_SIZE = Integer.BYTES * 2 + Long.BYTES;
+    private static final int MAX_RECORD_SIZE = 16 << 20;
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+    private static final long MAP_CHUNK_SIZE = 64L << 20;
+    private static final PendingAppend STOP = new PendingAppend(-1, new byte[0][]);
+
+    private final Path directory;
+    private final int maxBatchSize;
+    private final long segmentSize;
+    private final Duration snapshotInterval;
+    private final BlockingQueue<PendingAppend> queue = new LinkedBlockingQueue<>();
+    private final Object snapshotLock = new Object();
+
+    private Thread writer;
+    private long appendPosition;
+    private boolean closed;
+    private volatile IOException failure;
+
+    private FileChannel segment;
+    private long segmentBytes;
+    private long writePosition;
+
+    private ScheduledExecutorService snapshotScheduler;
+    private volatile Supplier<List<ProviderProductResponse>> snapshotSource;
+    private long lastSnapshotPosition = -1;
+
+    public ProductLog(Path directory, int maxBatchSize, long segmentSize, Duration snapshotInterval) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be positive");
+        }
+
+        this.directory = directory;
+        this.maxBatchSize = maxBatchSize;
+        this.segmentSize = segmentSize;
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    /**
+     * Restores the products from the latest snapshot and the log tail and opens the log for appends,
+     * starting at the position right after the last recovered product.
+     */
+    public synchronized List<ProviderProductResponse> recover() throws IOException {
+        if (writer != null || closed) {
+            throw new IllegalStateException("The product log has already been opened");
+        }
+
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(path -> path.getFileName().toString().endsWith(TEMPORARY_SUFFIX)).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+
+        List<ProviderProductResponse> products = loadLatestSnapshot();
+        replaySegments(products);
+
+        appendPosition = products.size();
+        writePosition = products.size();
+        openSegment(writePosition);
+
+        writer = new Thread(this::writeLoop, "product-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+
+        return products;
+    }
+
+    /**
+     * Queues products for the log. {@code firstPosition} is the store position of the first product and must
+     * follow the previously appended one. The returned future completes once the products are on disk.
+     */
+    public CompletableFuture<Void> append(long firstPosition, List<ProviderProductResponse> products) {
+        byte[][] payloads = new byte[products.size()][];
+        for (int i = 0; i < payloads.length; i++) {
+            payloads[i] = ProductCodec.encode(products.get(i));
+        }
+
+        synchronized (this) {
+            if (writer == null || closed) {
+                throw new IllegalStateException("The product log is not open");
+            }
+
+            if (firstPosition != appendPosition) {
+                throw new IllegalArgumentException("Expected position " + appendPosition + " but got " + firstPosition);
+            }
+
+            if (failure != null) {
+                return CompletableFuture.failedFuture(new UncheckedIOException("The product log has failed", failure));
+            }
+
+            PendingAppend pending = new PendingAppend(firstPosition, payloads);
+            appendPosition += payloads.length;
+            queue.add(pending);
+            return pending.durable;
+        }
+    }
+
+    public void scheduleSnapshots(Supplier<List<ProviderProductResponse>> source) {
+        snapshotSource = source;
+        if (snapshotInterval.isZero() || snapshotInterval.isNegative()) {
+            return;
+        }
+
+        synchronized (this) {
+            if (snapshotScheduler != null || closed) {
+                return;
+            }
+
+            snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "product-log-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            snapshotScheduler.scheduleWithFixedDelay(this::snapshotQuietly,
+                    snapshotInterval.toNanos(), snapshotInterval.toNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Writes a snapshot of the given products, which must be a prefix of the store in store order, and drops
+     * the snapshots and log segments it makes obsolete.
+     */
+    public void snapshot(List<ProviderProductResponse> products) throws IOException {
+        synchronized (snapshotLock) {
+            long position = products.size();
+            if (position <= lastSnapshotPosition) {
+                return;
+            }
+
+            Path target = directory.resolve(fileName(SNAPSHOT_PREFIX, position, SNAPSHOT_SUFFIX));
+            Path temporary = directory.resolve(target.getFileName() + TEMPORARY_SUFFIX);
+            CRC32 crc = new CRC32();
+
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+                buffer.putInt(SNAPSHOT_MAGIC).putLong(position);
+
+                for (ProviderProductResponse product : products) {
+                    byte[] payload = ProductCodec.encode(product);
+                    crc.update(payload);
+
+                    if (buffer.remaining() < Integer.BYTES + payload.length) {
+                        flush(channel, buffer);
+                    }
+
+                    buffer.putInt(payload.length);
+                    if (buffer.remaining() < payload.length) {
+                        flush(channel, buffer);
+                        writeFully(channel, ByteBuffer.wrap(payload));
+                    } else {
+                        buffer.put(payload);
+                    }
+                }
+
+                if (buffer.remaining() < Integer.BYTES) {
+                    flush(channel, buffer);
+                }
+                buffer.putInt((int) crc.getValue());
+                flush(channel, buffer);
+                channel.force(true);
+            }
+
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory();
+            lastSnapshotPosition = position;
+
+            deleteObsoleteFiles();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        Thread writerToStop;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+            writerToStop = writer;
+            if (writerToStop != null) {
+                queue.add(STOP);
+            }
+
+            if (snapshotScheduler != null) {
+                snapshotScheduler.shutdown();
+            }
+        }
+
+        boolean interrupted = false;
+        if (writerToStop != null) {
+            while (writerToStop.isAlive()) {
+                try {
+                    writerToStop.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+
+        try {
+            if (segment != null) {
+                segment.close();
+            }
+
+            Supplier<List<ProviderProductResponse>> source = snapshotSource;
+            if (source != null && writerToStop != null) {
+                snapshot(source.get());
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void writeLoop() {
+        List<PendingAppend> batch = new ArrayList<>();
+        boolean stopping = false;
+
+        while (!stopping) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                continue;
+            }
+
+            queue.drainTo(batch, maxBatchSize - 1);
+            if (batch.get(batch.size() - 1) == STOP) {
+                batch.remove(batch.size() - 1);
+                stopping = true;
+            }
+
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<PendingAppend> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        if (failure == null) {
+            try {
+                writeFully(segment, encodeRecords(batch));
+                if (segmentBytes >= segmentSize) {
+                    segment.force(false);
+                    segment.close();
+                    openSegment(writePosition);
+                } else {
+                    segment.force(false);
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        for (PendingAppend pending : batch) {
+            if (failure == null) {
+                pending.durable.complete(null);
+            } else {
+                pending.durable.completeExceptionally(new UncheckedIOException("The product log has failed", failure));
+            }
+        }
+    }
+
+    private ByteBuffer encodeRecords(List<PendingAppend> batch) {
+        int size = 0;
+        for (PendingAppend pending : batch) {
+            for (byte[] payload : pending.payloads) {
+                size += RECORD_HEADER_SIZE + payload.length;
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        CRC32 crc = new CRC32();
+        for (PendingAppend pending : batch) {
+            long position = pending.firstPosition;
+            for (byte[] payload : pending.payloads) {
+                int start = buffer.position();
+                buffer.putInt(payload.length).putInt(0).putLong(position++).put(payload);
+
+                crc.reset();
+                crc.update(buffer.array(), start + Integer.BYTES * 2, Long.BYTES + payload.length);
+                buffer.putInt(start + Integer.BYTES, (int) crc.getValue());
+            }
+            writePosition = position;
+        }
+
+        segmentBytes += size;
+        buffer.flip();
+        return buffer;
+    }
+
+    private void openSegment(long startPosition) throws IOException {
+        segment = FileChannel.open(directory.resolve(fileName(SEGMENT_PREFIX, startPosition, SEGMENT_SUFFIX)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        segmentBytes = 0;
+        syncDirectory();
+    }
+
+    private List<ProviderProductResponse> loadLatestSnapshot() throws IOException {
+        List<Long> positions = listPositions(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        for (int i = positions.size() - 1; i >= 0; i--) {
+            Path path = directory.resolve(fileName(SNAPSHOT_PREFIX, positions.get(i), SNAPSHOT_SUFFIX));
+            List<ProviderProductResponse> products = readSnapshot(path);
+            if (products != null) {
+                lastSnapshotPosition = products.size();
+                return products;
+            }
+
+            LOGGER.warn("Ignoring corrupt product snapshot {}", path);
+        }
+
+        return new ArrayList<>();
+    }
+
+    private static List<ProviderProductResponse> readSnapshot(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedReader reader = new MappedReader(channel);
+            if (!reader.ensure(Integer.BYTES + Long.BYTES)) {
+                return null;
+            }
+
+            ByteBuffer header = reader.take(Integer.BYTES + Long.BYTES);
+            long count = header.getLong(Integer.BYTES);
+            if (header.getInt(0) != SNAPSHOT_MAGIC || count < 0 || count > Integer.MAX_VALUE - 8) {
+                return null;
+            }
+
+            List<ProviderProductResponse> products = new ArrayList<>((int) count);
+            CRC32 crc = new CRC32();
+            for (long i = 0; i < count; i++) {
+                if (!reader.ensure(Integer.BYTES)) {
+                    return null;
+                }
+
+                int length = reader.take(Integer.BYTES).getInt();
+                if (length < 0 || length > MAX_RECORD_SIZE || !reader.ensure(length)) {
+                    return null;
+                }
+
+                ByteBuffer payload = reader.take(length);
+                crc.update(payload.duplicate());
+                products.add(ProductCodec.decode(payload));
+            }
+
+            if (!reader.ensure(Integer.BYTES) || reader.take(Integer.BYTES).getInt() != (int) crc.getValue()) {
+                return null;
+            }
+
+            return products;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private void replaySegments(List<ProviderProductResponse> products) throws IOException {
+        List<Long> starts = listPositions(SEGMENT_PREFIX, SEGMENT_SUFFIX);
+        for (int i = 0; i < starts.size(); i++) {
+            if (i + 1 < starts.size() && starts.get(i + 1) <= products.size()) {
+                continue;
+            }
+
+            Path path = directory.resolve(fileName(SEGMENT_PREFIX, starts.get(i), SEGMENT_SUFFIX));
+            long validBytes = replaySegment(path, products);
+            if (validBytes < Files.size(path)) {
+                LOGGER.warn("Truncating product log {} at byte {} after {} recovered products", path, validBytes, products.size());
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    channel.truncate(validBytes);
+                    channel.force(true);
+                }
+
+                for (int j = i + 1; j < starts.size(); j++) {
+                    Files.delete(directory.resolve(fileName(SEGMENT_PREFIX, starts.get(j), SEGMENT_SUFFIX)));
+                }
+                return;
+            }
+        }
+    }
+
+    private static long replaySegment(Path path, List<ProviderProductResponse> products) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedReader reader = new MappedReader(channel);
+            CRC32 crc = new CRC32();
+
+            while (reader.ensure(RECORD_HEADER_SIZE)) {
+                long recordStart = reader.position();
+                ByteBuffer header = reader.take(RECORD_HEADER_SIZE);
+                int length = header.getInt();
+                int checksum = header.getInt();
+                long position = header.getLong();
+                if (length < 0 || length > MAX_RECORD_SIZE || !reader.ensure(length)) {
+                    return recordStart;
+                }
+
+                ByteBuffer payload = reader.take(length);
+                crc.reset();
+                crc.update(header.position(Integer.BYTES * 2));
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != checksum || position > products.size()) {
+                    return recordStart;
+                }
+
+                if (position == products.size()) {
+                    try {
+                        products.add(ProductCodec.decode(payload));
+                    } catch (RuntimeException e) {
+                        return recordStart;
+                    }
+                }
+            }
+
+            return reader.position();
+        }
+    }
+
+    private void deleteObsoleteFiles() throws IOException {
+        List<Long> snapshots = listPositions(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        int firstKept = Math.max(0, snapshots.size() - SNAPSHOTS_TO_KEEP);
+        for (int i = 0; i < firstKept; i++) {
+            Files.deleteIfExists(directory.resolve(fileName(SNAPSHOT_PREFIX, snapshots.get(i), SNAPSHOT_SUFFIX)));
+        }
+
+        if (snapshots.isEmpty()) {
+            return;
+        }
+
+        long oldestKeptSnapshot = snapshots.get(firstKept);
+        List<Long> segments = listPositions(SEGMENT_PREFIX, SEGMENT_SUFFIX);
+        for (int i = 0; i + 1 < segments.size() && segments.get(i + 1) <= oldestKeptSnapshot; i++) {
+            Files.deleteIfExists(directory.resolve(fileName(SEGMENT_PREFIX, segments.get(i), SEGMENT_SUFFIX)));
+        }
+    }
+
+    private List<Long> listPositions(String prefix, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+                    .map(name -> Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot(snapshotSource.get());
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Could not write a product snapshot", e);
+        }
+    }
+
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not every platform can fsync a directory; the file contents themselves are already synced.
+        }
+    }
+
+    private static String fileName(String prefix, long position, String suffix) {
+        return String.format("%s%020d%s", prefix, position, suffix);
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        writeFully(channel, buffer);
+        buffer.clear();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static final class PendingAppend {
+        private final long firstPosition;
+        private final byte[][] payloads;
+        private final CompletableFuture<Void> durable = new CompletableFuture<>();
+
+        private PendingAppend(long firstPosition, byte[][] payloads) {
+            this.firstPosition = firstPosition;
+            this.payloads = payloads;
+        }
+    }
+
+    /**
+     * Reads a file through read-only mappings of at most {@link #MAP_CHUNK_SIZE} bytes, remapping at the
+     * current position whenever the next read does not fit the current mapping.
+     */
+    private static final class MappedReader {
+        private final FileChannel channel;
+        private final long size;
+        private long offset;
+        private MappedByteBuffer buffer;
+
+        private MappedReader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+        }
+
+        private boolean ensure(int bytes) throws IOException {
+            if (buffer != null && buffer.remaining() >= bytes) {
+                return true;
+            }
+
+            long position = position();
+            long length = Math.min(MAP_CHUNK_SIZE, size - position);
+            if (length < bytes) {
+                return false;
+            }
+
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            offset = position;
+            return true;
+        }
+
+        private ByteBuffer take(int bytes) {
+            ByteBuffer slice = buffer.slice(buffer.position(), bytes);
+            buffer.position(buffer.position() + bytes);
+            return slice;
+        }
+
+        private long position() {
+            return buffer == null ? 0 : offset + buffer.position();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package provider.store;
+
+import provider.contracts.ProviderProductResponse;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Append-only, insertion-ordered product storage. Reads never block and never observe a partially added batch.
+ */
+public interface ProductStore {
+    void add(ProviderProductResponse product);
+
+    void addAll(List<ProviderProductResponse> products);
+
+    ProviderProductResponse get(UUID id);
+
+    ProviderProductResponse get(int index);
+
+    int size();
+
+    long version();
+
+    List<ProviderProductResponse> snapshot();
+}
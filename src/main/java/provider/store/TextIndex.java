@@ -0,0 +1,339 @@
+package provider.store;
+
+import provider.contracts.ProviderProductResponse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Inverted index over product names and descriptions.
+ * <p>
+ * Text is split into lower-cased letter and digit runs. Every term maps to a postings list of store positions,
+ * each with flags telling whether the term occurs in the name, the description or both. Terms are kept sorted,
+ * so the last query term, which is usually still being typed, is matched as a prefix. All query terms must
+ * match; products are ranked by the idf-weighted sum of their matches, where a name match counts more than a
+ * description match.
+ * <p>
+ * Positions must be added by a single writer. Readers never lock.
+ */
+public class TextIndex {
+    private static final byte IN_DESCRIPTION = 1;
+    private static final byte IN_NAME = 2;
+    private static final int NAME_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int MAX_TERM_LENGTH = 64;
+    private static final int MAX_PREFIX_EXPANSIONS = 256;
+    private static final int DEADLINE_CHECK_INTERVAL = 1024;
+
+    private final ConcurrentSkipListMap<String, Postings> terms = new ConcurrentSkipListMap<>();
+    private volatile int documents;
+
+    public void addAll(int firstPosition, List<ProviderProductResponse> products) {
+        Map<String, Byte> documentTerms = new HashMap<>();
+        int position = firstPosition;
+        for (ProviderProductResponse product : products) {
+            documentTerms.clear();
+            for (String term : tokenize(product.getName())) {
+                documentTerms.merge(term, IN_NAME, (a, b) -> (byte) (a | b));
+            }
+            for (String term : tokenize(product.getDescription())) {
+                documentTerms.merge(term, IN_DESCRIPTION, (a, b) -> (byte) (a | b));
+            }
+
+            for (Map.Entry<String, Byte> term : documentTerms.entrySet()) {
+                terms.computeIfAbsent(term.getKey(), key -> new Postings()).add(position, term.getValue());
+            }
+            position++;
+        }
+
+        documents = Math.max(documents, position);
+    }
+
+    /**
+     * Returns the positions of the best {@code limit} matches, best first. When {@code deadlineNanos}
+     * (a {@link System#nanoTime()} value) passes, the search stops and returns the best matches found so far,
+     * marked as incomplete.
+     */
+    public Result search(String query, int limit, long deadlineNanos) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty() || limit < 1) {
+            return new Result(new int[0], true);
+        }
+
+        boolean lastIsPrefix = Character.isLetterOrDigit(query.charAt(query.length() - 1));
+        Set<String> distinctTokens = new LinkedHashSet<>(tokens);
+        String lastToken = tokens.get(tokens.size() - 1);
+        boolean complete = true;
+
+        int totalDocuments = Math.max(1, documents);
+        List<QueryTerm> queryTerms = new ArrayList<>(distinctTokens.size());
+        for (String token : distinctTokens) {
+            List<PostingsView> views = new ArrayList<>();
+            if (lastIsPrefix && token.equals(lastToken)) {
+                NavigableMap<String, Postings> expansions = terms.subMap(token, true, token + Character.MAX_VALUE, false);
+                for (Postings postings : expansions.values()) {
+                    if (views.size() == MAX_PREFIX_EXPANSIONS) {
+                        complete = false;
+                        break;
+                    }
+                    views.add(postings.view());
+                }
+            } else {
+                Postings postings = terms.get(token);
+                if (postings != null) {
+                    views.add(postings.view());
+                }
+            }
+
+            if (views.isEmpty()) {
+                return new Result(new int[0], complete);
+            }
+            queryTerms.add(new QueryTerm(views, totalDocuments));
+        }
+        queryTerms.sort(Comparator.comparingLong(term -> term.size));
+
+        double maxScore = 0;
+        for (QueryTerm term : queryTerms) {
+            maxScore += term.idf * (NAME_WEIGHT + DESCRIPTION_WEIGHT);
+        }
+
+        QueryTerm rarest = queryTerms.get(0);
+        Union candidates = new Union(rarest.views);
+        PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, Match.WORST_FIRST);
+
+        for (long checked = 0; candidates.hasNext(); checked++) {
+            if (best.size() == limit && best.peek().score >= maxScore) {
+                break;
+            }
+
+            if (checked % DEADLINE_CHECK_INTERVAL == 0 && checked > 0 && System.nanoTime() - deadlineNanos > 0) {
+                complete = false;
+                break;
+            }
+
+            long candidate = candidates.next();
+            int position = (int) (candidate >>> Byte.SIZE);
+            double score = rarest.idf * weight((byte) candidate);
+            for (int t = 1; t < queryTerms.size() && score > 0; t++) {
+                QueryTerm term = queryTerms.get(t);
+                byte flags = term.flags(position);
+                score = flags == 0 ? 0 : score + term.idf * weight(flags);
+            }
+
+            if (score > 0) {
+                best.add(new Match(position, score));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+
+        int[] positions = new int[best.size()];
+        for (int i = positions.length - 1; i >= 0; i--) {
+            positions[i] = best.poll().position;
+        }
+
+        return new Result(positions, complete);
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+
+        String lowerCase = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lowerCase.length(); i++) {
+            boolean letterOrDigit = i < lowerCase.length() && Character.isLetterOrDigit(lowerCase.charAt(i));
+            if (letterOrDigit && start < 0) {
+                start = i;
+            } else if (!letterOrDigit && start >= 0) {
+                tokens.add(lowerCase.substring(start, Math.min(i, start + MAX_TERM_LENGTH)));
+                start = -1;
+            }
+        }
+
+        return tokens;
+    }
+
+    private static int weight(byte flags) {
+        return ((flags & IN_NAME) != 0 ? NAME_WEIGHT : 0) + ((flags & IN_DESCRIPTION) != 0 ? DESCRIPTION_WEIGHT : 0);
+    }
+
+    public static final class Result {
+        private final int[] positions;
+        private final boolean complete;
+
+        private Result(int[] positions, boolean complete) {
+            this.positions = positions;
+            this.complete = complete;
+        }
+
+        public int[] getPositions() {
+            return positions;
+        }
+
+        public boolean isComplete() {
+            return complete;
+        }
+    }
+
+    private static final class QueryTerm {
+        private final List<PostingsView> views;
+        private final long size;
+        private final double idf;
+
+        private QueryTerm(List<PostingsView> views, int documents) {
+            this.views = views;
+            this.size = views.stream().mapToLong(view -> view.size).sum();
+            this.idf = Math.log(1 + documents / (Math.min(size, documents) + 0.5));
+        }
+
+        private byte flags(int position) {
+            byte flags = 0;
+            for (PostingsView view : views) {
+                int index = Arrays.binarySearch(view.positions, 0, view.size, position);
+                if (index >= 0) {
+                    flags |= view.flags[index];
+                }
+            }
+
+            return flags;
+        }
+    }
+
+    /**
+     * Merges the postings lists of one query term in ascending position order, yielding each position once as
+     * {@code position << 8 | flags} with the flags of all lists containing it combined.
+     */
+    private static final class Union {
+        private final List<PostingsView> views;
+        private final int[] offsets;
+        private final int[] heap;
+        private int heapSize;
+
+        private Union(List<PostingsView> views) {
+            this.views = views;
+            this.offsets = new int[views.size()];
+            this.heap = new int[views.size()];
+            for (int view = 0; view < views.size(); view++) {
+                if (views.get(view).size > 0) {
+                    heap[heapSize++] = view;
+                }
+            }
+            for (int i = heapSize / 2 - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+        }
+
+        private boolean hasNext() {
+            return heapSize > 0;
+        }
+
+        private long next() {
+            int position = current(heap[0]);
+            byte flags = 0;
+            while (heapSize > 0 && current(heap[0]) == position) {
+                int view = heap[0];
+                flags |= views.get(view).flags[offsets[view]];
+                if (++offsets[view] == views.get(view).size) {
+                    heap[0] = heap[--heapSize];
+                }
+                siftDown(0);
+            }
+
+            return (long) position << Byte.SIZE | flags;
+        }
+
+        private int current(int view) {
+            return views.get(view).positions[offsets[view]];
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                int smallest = index;
+                int left = index * 2 + 1;
+                int right = left + 1;
+                if (left < heapSize && current(heap[left]) < current(heap[smallest])) {
+                    smallest = left;
+                }
+                if (right < heapSize && current(heap[right]) < current(heap[smallest])) {
+                    smallest = right;
+                }
+                if (smallest == index) {
+                    return;
+                }
+
+                int view = heap[index];
+                heap[index] = heap[smallest];
+                heap[smallest] = view;
+                index = smallest;
+            }
+        }
+    }
+
+    private static final class Match {
+        private static final Comparator<Match> WORST_FIRST = Comparator.<Match>comparingDouble(match -> match.score)
+                .thenComparing(Comparator.<Match>comparingInt(match -> match.position).reversed());
+
+        private final int position;
+        private final double score;
+
+        private Match(int position, double score) {
+            this.position = position;
+            this.score = score;
+        }
+    }
+
+    /**
+     * Append-only, position-ordered postings list. The new size is published last, like in the store.
+     */
+    private static final class Postings {
+        private volatile int[] positions = new int[2];
+        private volatile byte[] flags = new byte[2];
+        private volatile int size;
+
+        private void add(int position, byte positionFlags) {
+            int[] currentPositions = positions;
+            byte[] currentFlags = flags;
+            if (size == currentPositions.length) {
+                currentPositions = Arrays.copyOf(currentPositions, currentPositions.length * 2);
+                currentFlags = Arrays.copyOf(currentFlags, currentFlags.length * 2);
+                positions = currentPositions;
+                flags = currentFlags;
+            }
+
+            currentPositions[size] = position;
+            currentFlags[size] = positionFlags;
+            size = size + 1;
+        }
+
+        private PostingsView view() {
+            int currentSize = size;
+            return new PostingsView(positions, flags, currentSize);
+        }
+    }
+
+    private static final class PostingsView {
+        private final int[] positions;
+        private final byte[] flags;
+        private final int size;
+
+        private PostingsView(int[] positions, byte[] flags, int size) {
+            this.positions = positions;
+            this.flags = flags;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package consumer.benchmark;
+
+import consumer.config.Config;
+import consumer.config.ConsumerProperties;
+import consumer.services.ProductsFetcher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+import provider.MainProductsProvider;
+import provider.services.ProductsService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Compares the RestTemplateBuilder default transport with the configured consumer transports against a
+ * provider started in-process on a random port. Run with {@code mvn test -Pbenchmark}.
+ */
+public class HttpTransportBenchmark {
+    private static final int THREADS = 16;
+    private static final int WARMUP_REQUESTS_PER_THREAD = 500;
+    private static final int REQUESTS_PER_THREAD = 2_000;
+
+    private static ConfigurableApplicationContext provider;
+    private static String providerUrl;
+    private static UUID productId;
+
+    @BeforeAll
+    static void startProvider() {
+        provider = new SpringApplicationBuilder(MainProductsProvider.class)
+                .properties("server.port=0", "logging.level.root=WARN")
+                .run();
+        providerUrl = "http://localhost:" + ((ServletWebServerApplicationContext) provider).getWebServer().getPort();
+        productId = provider.getBean(ProductsService.class).getProductByIndex(0).getId();
+    }
+
+    @AfterAll
+    static void stopProvider() {
+        provider.close();
+    }
+
+    @Test
+    void compareTransports() throws Exception {
+        run("default (RestTemplateBuilder)", () -> new RestTemplateBuilder()
+                .rootUri(providerUrl)
+                .messageConverters(Config.createMessageConverters(ConsumerProperties.Http.Format.JSON))
+                .build());
+
+        for (ConsumerProperties.Http.Transport transport : ConsumerProperties.Http.Transport.values()) {
+            ConsumerProperties.Http http = new ConsumerProperties.Http();
+            http.setTransport(transport);
+            ClientHttpRequestFactory requestFactory = Config.createRequestFactory(http);
+
+            run(transport.name().toLowerCase(), () -> new RestTemplateBuilder()
+                    .rootUri(providerUrl)
+                    .requestFactory(() -> requestFactory)
+                    .messageConverters(Config.createMessageConverters(ConsumerProperties.Http.Format.JSON))
+                    .build());
+        }
+    }
+
+    private void run(String name, Supplier<RestTemplate> restTemplate) throws Exception {
+        ProductsFetcher productsFetcher = new ProductsFetcher(restTemplate.get(), new SimpleMeterRegistry());
+        measure(productsFetcher, WARMUP_REQUESTS_PER_THREAD);
+        long[] latencies = new long[THREADS * REQUESTS_PER_THREAD];
+
+        long started = System.nanoTime();
+        List<long[]> results = measure(productsFetcher, REQUESTS_PER_THREAD);
+        long elapsed = System.nanoTime() - started;
+
+        for (int i = 0; i < results.size(); i++) {
+            System.arraycopy(results.get(i), 0, latencies, i * REQUESTS_PER_THREAD, REQUESTS_PER_THREAD);
+        }
+        Arrays.sort(latencies);
+
+        System.out.printf("%-30s %10.0f req/s  p50 %8.3f ms  p99 %8.3f ms  p99.9 %8.3f ms  max %8.3f ms%n", name,
+                latencies.length / (elapsed / 1e9),
+                percentile(latencies, 50), percentile(latencies, 99), percentile(latencies, 99.9),
+                latencies[latencies.length - 1] / 1e6);
+    }
+
+    private List<long[]> measure(ProductsFetcher productsFetcher, int requestsPerThread) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            futures.add(executor.submit(() -> {
+                long[] latencies = new long[requestsPerThread];
+                for (int i = 0; i < requestsPerThread; i++) {
+                    long start = System.nanoTime();
+                    productsFetcher.getProductByIndex(0);
+                    productsFetcher.getProduct(productId);
+                    latencies[i] = System.nanoTime() - start;
+                }
+                return latencies;
+            }));
+        }
+
+        List<long[]> results = new ArrayList<>();
+        for (Future<long[]> future : futures) {
+            results.add(future.get());
+        }
+        executor.shutdown();
+
+        return results;
+    }
+
+    private static double percentile(long[] sortedLatencies, double percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.max(0, index)] / 1e6;
+    }
+}
@@ -0,0 +1,72 @@
+package consumer.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import consumer.config.ConsumerProperties;
+import consumer.contracts.ProductResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import provider.config.ProviderProperties;
+import provider.contracts.ProviderProductResponse;
+import provider.controllers.ProductCborEncoder;
+import provider.controllers.ProductJsonCache;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes product lists encoded by the provider into consumer {@link ProductResponse} arrays, in JSON and in
+ * CBOR, with object mappers configured like the consumer's message converters. The payload size of every
+ * format is printed during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadFormatJmh {
+    @Param({"100", "10000"})
+    private int products;
+
+    @Param({"JSON", "CBOR"})
+    private ConsumerProperties.Http.Format format;
+
+    private ObjectMapper objectMapper;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() {
+        List<ProviderProductResponse> productList = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            productList.add(new ProviderProductResponse(UUID.randomUUID(), "product " + i, "description of product " + i, i * 1.25, "store " + i % 10, i % 10));
+        }
+
+        if (format == ConsumerProperties.Http.Format.CBOR) {
+            objectMapper = Jackson2ObjectMapperBuilder.cbor().build();
+            payload = new ProductCborEncoder().encode(productList, null);
+        } else {
+            objectMapper = Jackson2ObjectMapperBuilder.json().build();
+            payload = new ProductJsonCache(new Jackson2ObjectMapperBuilder().build(), new ProviderProperties()).getArray(productList);
+        }
+        System.out.printf("%n%s payload for %d products: %d bytes (%.1f bytes/product)%n",
+                format, products, payload.length, (double) payload.length / products);
+    }
+
+    @Benchmark
+    public ProductResponse[] decode() throws IOException {
+        return objectMapper.readValue(payload, ProductResponse[].class);
+    }
+}
@@ -0,0 +1,99 @@
+package consumer.benchmark;
+
+import consumer.config.Config;
+import consumer.config.ConsumerProperties;
+import consumer.contracts.ProductResponse;
+import consumer.contracts.ProductsPage;
+import consumer.exceptions.InvalidProductIdException;
+import consumer.services.ProductsFetcher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import provider.MainProductsProvider;
+import provider.contracts.CreateProduct;
+import provider.services.ProductsService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ProductsFetcher} round trips over the pooled transport against a provider started in-process on a
+ * random port, in JSON and in CBOR. {@code getProduct} is a conditional request answered with 304 after the
+ * first call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductsFetcherJmh {
+    private static final int PRODUCTS = 1_000;
+
+    @Param({"JSON", "CBOR"})
+    private ConsumerProperties.Http.Format format;
+
+    private ConfigurableApplicationContext provider;
+    private ProductsFetcher productsFetcher;
+    private UUID productId;
+
+    @Setup
+    public void setUp() {
+        provider = new SpringApplicationBuilder(MainProductsProvider.class)
+                .properties("server.port=0", "logging.level.root=WARN")
+                .run();
+        String providerUrl = "http://localhost:" + ((ServletWebServerApplicationContext) provider).getWebServer().getPort();
+
+        ProductsService productsService = provider.getBean(ProductsService.class);
+        List<CreateProduct> createProducts = new ArrayList<>();
+        for (int i = productsService.getProducts().size(); i < PRODUCTS; i++) {
+            createProducts.add(new CreateProduct("product " + i, "description of product " + i, i));
+        }
+        productsService.createProducts(createProducts);
+        productId = productsService.getProductByIndex(0).getId();
+
+        ClientHttpRequestFactory requestFactory = Config.createRequestFactory(new ConsumerProperties.Http());
+        productsFetcher = new ProductsFetcher(new RestTemplateBuilder()
+                .rootUri(providerUrl)
+                .requestFactory(() -> requestFactory)
+                .messageConverters(Config.createMessageConverters(format))
+                .build(), new SimpleMeterRegistry());
+    }
+
+    @TearDown
+    public void tearDown() {
+        provider.close();
+    }
+
+    @Benchmark
+    public ProductResponse getProduct() throws InvalidProductIdException {
+        return productsFetcher.getProduct(productId);
+    }
+
+    @Benchmark
+    public ProductResponse getProductByIndex() {
+        return productsFetcher.getProductByIndex(0);
+    }
+
+    @Benchmark
+    public ProductsPage getProductsPage() {
+        return productsFetcher.getProductsPage(null, 100);
+    }
+}
@@ -0,0 +1,201 @@
+package consumer.benchmark;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import provider.MainProductsProvider;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Launches both applications in fresh JVMs and measures the provider's time to its first successful request
+ * and the consumer's time to exit, against a provider started in-process. Each is launched as is, with the
+ * {@code fast-startup} profile, and with the profile and the application's AppCDS archive.
+ * <p>
+ * The {@code appcds} build also indexes the components. The default launches ignore the index and scan the class
+ * path like a default build does, the {@code fast-startup} launches read it.
+ * <p>
+ * Runs the packaged jar with the class path the archives were trained with, so package first:
+ * {@code mvn clean package -Pappcds -DskipTests}, then {@code mvn test -Pbenchmark -Dtest=StartupBenchmark}.
+ * The number of launches per mode can be changed with {@code -Dstartup.runs=N}.
+ */
+public class StartupBenchmark {
+    private static final int RUNS = Integer.getInteger("startup.runs", 5);
+    private static final Duration TIMEOUT = Duration.ofMinutes(1);
+    private static final Path BUILD_DIRECTORY = Path.of(System.getProperty("buildDirectory", "target"));
+
+    private static String classPath;
+    private static ConfigurableApplicationContext provider;
+    private static String providerUrl;
+
+    @BeforeAll
+    static void startProvider() throws IOException {
+        Path dependencies = BUILD_DIRECTORY.resolve("appcds.classpath");
+        Assumptions.assumeTrue(Files.exists(dependencies), "Package with mvn clean package -Pappcds -DskipTests first");
+        try (Stream<Path> files = Files.list(BUILD_DIRECTORY)) {
+            Path jar = files.filter(file -> file.getFileName().toString().endsWith(".jar")).findFirst().orElseThrow();
+            classPath = jar.toAbsolutePath() + System.getProperty("path.separator") + Files.readString(dependencies).trim();
+        }
+
+        provider = new SpringApplicationBuilder(MainProductsProvider.class)
+                .properties("server.port=0", "logging.level.root=WARN")
+                .run();
+        providerUrl = "http://localhost:" + ((ServletWebServerApplicationContext) provider).getWebServer().getPort();
+    }
+
+    @AfterAll
+    static void stopProvider() {
+        if (provider != null) {
+            provider.close();
+        }
+    }
+
+    @Test
+    void provider() throws Exception {
+        for (Mode mode : Mode.values()) {
+            long[] millis = new long[RUNS];
+            for (int run = -1; run < RUNS; run++) {
+                long elapsed = timeToFirstRequest(mode);
+                if (run >= 0) {
+                    millis[run] = elapsed;
+                }
+            }
+
+            report("provider, time to first request", mode, millis);
+        }
+    }
+
+    @Test
+    void consumer() throws Exception {
+        for (Mode mode : Mode.values()) {
+            long[] millis = new long[RUNS];
+            for (int run = -1; run < RUNS; run++) {
+                long elapsed = timeToExit(mode);
+                if (run >= 0) {
+                    millis[run] = elapsed;
+                }
+            }
+
+            report("consumer, time to exit", mode, millis);
+        }
+    }
+
+    private long timeToFirstRequest(Mode mode) throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+
+        HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/products")).build();
+
+        long started = System.nanoTime();
+        Process process = launch(mode, "provider", "provider.MainProductsProvider", "-Dserver.port=" + port);
+        try {
+            while (System.nanoTime() - started < TIMEOUT.toNanos()) {
+                if (!process.isAlive()) {
+                    fail("The provider exited with " + process.exitValue() + ", see " + log("provider"));
+                }
+
+                try {
+                    if (httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+                    }
+                } catch (IOException e) {
+                    // Not listening yet
+                }
+                Thread.sleep(5);
+            }
+
+            return fail("The provider did not answer within " + TIMEOUT);
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private long timeToExit(Mode mode) throws Exception {
+        long started = System.nanoTime();
+        Process process = launch(mode, "consumer", "consumer.MainProductsConsumer", "-Dconsumer.provider-url=" + providerUrl);
+        if (!process.waitFor(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+            process.destroyForcibly();
+            fail("The consumer did not exit within " + TIMEOUT);
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        assertEquals(0, process.exitValue(), "The consumer failed, see " + log("consumer"));
+        return elapsed;
+    }
+
+    private Process launch(Mode mode, String application, String mainClass, String... properties) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(mode.options(application));
+        command.addAll(Arrays.asList(properties));
+        command.add("-Dlogging.level.root=WARN");
+        command.add("-cp");
+        command.add(classPath);
+        command.add(mainClass);
+
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log(application).toFile())
+                .start();
+    }
+
+    private static Path log(String application) {
+        return BUILD_DIRECTORY.resolve("startup-" + application + ".log");
+    }
+
+    private static void report(String name, Mode mode, long[] millis) {
+        Arrays.sort(millis);
+        System.out.printf("%-32s %-20s min %6d ms  median %6d ms  max %6d ms%n", name, mode.label,
+                millis[0], millis[millis.length / 2], millis[millis.length - 1]);
+    }
+
+    private enum Mode {
+        DEFAULT("default"),
+        FAST_STARTUP("fast-startup"),
+        FAST_STARTUP_APPCDS("fast-startup+AppCDS");
+
+        private final String label;
+
+        Mode(String label) {
+            this.label = label;
+        }
+
+        private List<String> options(String application) {
+            switch (this) {
+                case FAST_STARTUP:
+                    return List.of("-Dspring.profiles.active=fast-startup");
+                case FAST_STARTUP_APPCDS:
+                    Path archive = BUILD_DIRECTORY.resolve(application + ".jsa");
+                    Assumptions.assumeTrue(Files.exists(archive), "No AppCDS archive at " + archive);
+                    return List.of("-Dspring.profiles.active=fast-startup", "-XX:SharedArchiveFile=" + archive.toAbsolutePath());
+                case DEFAULT:
+                default:
+                    return List.of("-Dspring.index.ignore=true");
+            }
+        }
+    }
+}
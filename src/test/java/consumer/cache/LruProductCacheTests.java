@@ -0,0 +1,95 @@
+package consumer.cache;
+
+import consumer.contracts.ProductResponse;
+import consumer.exceptions.InvalidProductIdException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LruProductCacheTests {
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final LruProductCache cache = new LruProductCache(2, Duration.ofSeconds(60), Duration.ofSeconds(5), now::get);
+
+    private ProductResponse load(UUID id) {
+        loads.incrementAndGet();
+        return new ProductResponse(id, "Product", "Product description", 1.0);
+    }
+
+    private ProductResponse loadInvalid(UUID id) throws InvalidProductIdException {
+        loads.incrementAndGet();
+        throw new InvalidProductIdException(id);
+    }
+
+    @Test
+    void testHitsUntilTtlExpires() throws InvalidProductIdException {
+        UUID id = UUID.randomUUID();
+
+        ProductResponse product = cache.get(id, this::load);
+        assertSame(product, cache.get(id, this::load));
+        assertEquals(1, loads.get());
+
+        now.addAndGet(Duration.ofSeconds(61).toNanos());
+        cache.get(id, this::load);
+
+        assertEquals(2, loads.get());
+        CacheStats stats = cache.stats();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(2, stats.getMissCount());
+        assertEquals(1, stats.getEvictionCount());
+    }
+
+    @Test
+    void testInvalidIdsAreCachedWithTheNegativeTtl() {
+        UUID id = UUID.randomUUID();
+
+        assertThrows(InvalidProductIdException.class, () -> cache.get(id, this::loadInvalid));
+        assertThrows(InvalidProductIdException.class, () -> cache.get(id, this::loadInvalid));
+        assertEquals(1, loads.get());
+
+        now.addAndGet(Duration.ofSeconds(6).toNanos());
+        assertThrows(InvalidProductIdException.class, () -> cache.get(id, this::loadInvalid));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testInvalidIdIsNotCachedWhenInvalidatedDuringItsLoad() throws InvalidProductIdException {
+        UUID id = UUID.randomUUID();
+
+        assertThrows(InvalidProductIdException.class, () -> cache.get(id, loadingId -> {
+            cache.invalidate(loadingId);
+            return loadInvalid(loadingId);
+        }));
+        cache.get(id, this::load);
+
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.stats().getSize());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntryIsEvicted() throws InvalidProductIdException {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+
+        cache.get(first, this::load);
+        cache.get(second, this::load);
+        cache.get(first, this::load);
+        cache.get(third, this::load);
+
+        cache.get(first, this::load);
+        assertEquals(3, loads.get());
+        cache.get(second, this::load);
+        assertEquals(4, loads.get());
+
+        assertEquals(2, cache.stats().getSize());
+        assertEquals(2, cache.stats().getEvictionCount());
+    }
+}
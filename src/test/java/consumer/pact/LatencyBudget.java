@@ -0,0 +1,23 @@
+package consumer.pact;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Latency the consumer can afford for the interactions with the given description, declared on the
+ * {@code @Pact} method that defines them. {@link LatencyBudgetWriter} stores the budgets next to the pact, and
+ * the provider verification replays each budgeted interaction and fails when the percentile is over budget.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Repeatable(LatencyBudgets.class)
+public @interface LatencyBudget {
+    String interaction();
+
+    double percentile() default 95;
+
+    long millis();
+}
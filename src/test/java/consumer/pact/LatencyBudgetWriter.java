@@ -0,0 +1,69 @@
+package consumer.pact;
+
+import au.com.dius.pact.consumer.junit5.PactTestFor;
+import au.com.dius.pact.core.model.annotations.Pact;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the {@link LatencyBudget}s of a consumer pact test class to
+ * {@code <pact.rootDir>/budgets/<consumer>-<provider>.json}. The budgets live in a folder of their own, so
+ * they are not loaded as pacts.
+ */
+public final class LatencyBudgetWriter {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private LatencyBudgetWriter() {
+    }
+
+    public static void write(Class<?> testClass) throws IOException {
+        String provider = testClass.getAnnotation(PactTestFor.class).providerName();
+        String consumer = null;
+        List<Map<String, Object>> budgets = new ArrayList<>();
+
+        for (Method method : testClass.getDeclaredMethods()) {
+            LatencyBudget[] declared = method.getAnnotationsByType(LatencyBudget.class);
+            if (declared.length == 0) {
+                continue;
+            }
+
+            Pact pact = method.getAnnotation(Pact.class);
+            if (pact == null) {
+                throw new IllegalStateException("Latency budgets must be declared on @Pact methods, not on " + method.getName());
+            }
+            consumer = pact.consumer();
+
+            for (LatencyBudget budget : declared) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("interaction", budget.interaction());
+                entry.put("percentile", budget.percentile());
+                entry.put("millis", budget.millis());
+                budgets.add(entry);
+            }
+        }
+
+        if (consumer == null) {
+            return;
+        }
+
+        budgets.sort(Comparator.comparing(entry -> (String) entry.get("interaction")));
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("consumer", consumer);
+        document.put("provider", provider);
+        document.put("budgets", budgets);
+
+        Path file = Path.of(System.getProperty("pact.rootDir", "target/pacts"), "budgets", consumer + "-" + provider + ".json");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, OBJECT_MAPPER.writeValueAsString(document) + System.lineSeparator());
+    }
+}
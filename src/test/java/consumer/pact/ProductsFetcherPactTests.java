@@ -9,35 +9,87 @@ import au.com.dius.pact.consumer.junit5.PactTestFor;
 import au.com.dius.pact.core.model.PactSpecVersion;
 import au.com.dius.pact.core.model.RequestResponsePact;
 import au.com.dius.pact.core.model.annotations.Pact;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import consumer.cache.NoOpProductCache;
+import consumer.config.Config;
+import consumer.config.ConsumerProperties;
+import consumer.contracts.CreateProduct;
+import consumer.contracts.ProductChanges;
 import consumer.contracts.ProductResponse;
 import consumer.exceptions.InvalidProductIdException;
+import consumer.services.AsyncProductsFetcher;
+import consumer.services.ProductNameResult;
+import consumer.services.ProductsBatcher;
 import consumer.services.ProductsFetcher;
+import consumer.services.ProductsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @ExtendWith(PactConsumerTestExt.class)
 @PactTestFor(providerName = "Products Application", pactVersion = PactSpecVersion.V3)
 public class ProductsFetcherPactTests {
 
+    private static final ObjectMapper CBOR_MAPPER = new ObjectMapper(CBORFactory.builder()
+            .enable(CBORGenerator.Feature.WRITE_TYPE_HEADER)
+            .build());
+
+    private SimpleMeterRegistry meterRegistry;
     private ProductsFetcher productsFetcher;
+    private AsyncProductsFetcher asyncProductsFetcher;
+
+    @AfterAll
+    static void writeLatencyBudgets() throws IOException {
+        LatencyBudgetWriter.write(ProductsFetcherPactTests.class);
+    }
 
     @BeforeEach
     void setUp(MockServer mockServer) {
         RestTemplate restTemplate = new RestTemplateBuilder()
                 .rootUri(mockServer.getUrl())
                 .build();
-        productsFetcher = new ProductsFetcher(restTemplate);
+        meterRegistry = new SimpleMeterRegistry();
+        productsFetcher = new ProductsFetcher(restTemplate, meterRegistry);
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        asyncProductsFetcher = new AsyncProductsFetcher(httpClient, new Jackson2ObjectMapperBuilder().build(), mockServer.getUrl());
     }
 
     @Pact(consumer = "Customer Application")
+    @LatencyBudget(interaction = "a request for products", millis = 50)
     public RequestResponsePact existingProducts(PactDslWithProvider builder) {
         return builder
                 .given("existing products")
@@ -57,6 +109,7 @@ public class ProductsFetcherPactTests {
     }
 
     @Pact(consumer = "Customer Application")
+    @LatencyBudget(interaction = "a request for a product", millis = 20)
     public RequestResponsePact oneProductExists(PactDslWithProvider builder) {
         return builder
                 .given("one product exists")
@@ -108,6 +161,30 @@ public class ProductsFetcherPactTests {
                 .toPact();
     }
 
+    @Pact(consumer = "Customer Application")
+    public RequestResponsePact createProductWithIdempotencyKey(PactDslWithProvider builder) {
+        return builder
+                .given("one create product")
+                .uponReceiving("a request to create a product with an idempotency key")
+                .path("/api/products")
+                .method("POST")
+                .matchHeader(ProductsFetcher.IDEMPOTENCY_KEY_HEADER, "[\\w-]{1,255}", "create-product-1")
+                .body(new PactDslJsonBody()
+                        .stringType("name", "Product 1")
+                        .stringType("description", "Product 1 description")
+                        .numberType("price", 1.0)
+                        .getBody().toString()
+                )
+                .willRespondWith()
+                .status(200)
+                .body(new PactDslJsonBody()
+                        .uuid("id", UUID.fromString("01234567-0123-0123-0123-0123456789ab"))
+                        .stringType("name", "Product 1")
+                        .stringType("description", "Product 1 description")
+                        .numberType("price", 1.0))
+                .toPact();
+    }
+
     @Test
     @PactTestFor(pactMethod = "existingProducts")
     void testExistingProducts() {
@@ -135,6 +212,10 @@ public class ProductsFetcherPactTests {
     @PactTestFor(pactMethod = "oneProductDoesNotExist")
     void testOneProductDoesNotExist() {
         assertThrows(InvalidProductIdException.class, () -> productsFetcher.getProduct(UUID.fromString("01234567-0123-0123-0123-0123456789ab")));
+
+        assertEquals(1, meterRegistry.get(ProductsFetcher.REQUESTS_METRIC)
+                .tags("operation", "getProduct", "outcome", "not_found")
+                .timer().count());
     }
 
     @Test
@@ -148,6 +229,15 @@ public class ProductsFetcherPactTests {
         assertEquals(1.0, productResponse.getPrice());
     }
 
+    @Test
+    @PactTestFor(pactMethod = "createProductWithIdempotencyKey")
+    void testCreateProductWithIdempotencyKey() {
+        ProductResponse productResponse = productsFetcher.createProduct("Product 1", "Product 1 description", 1.0, "create-product-1");
+
+        assertEquals(UUID.fromString("01234567-0123-0123-0123-0123456789ab"), productResponse.getId());
+        assertEquals("Product 1", productResponse.getName());
+    }
+
     @Pact(consumer = "Customer Application")
     public RequestResponsePact getProductByIndexExists(PactDslWithProvider builder) {
         return builder
@@ -195,4 +285,586 @@ public class ProductsFetcherPactTests {
 
         assertEquals("The product at index -1 does not exist", runtimeException.getMessage());
     }
+
+    @Pact(consumer = "Customer Application")
+    @LatencyBudget(interaction = "a request for the first page of products", millis = 20)
+    public RequestResponsePact productsPages(PactDslWithProvider builder) {
+        return builder
+                .given("two existing products")
+                .uponReceiving("a request for the first page of products")
+                .path("/api/products")
+                .query("limit=1")
+                .method("GET")
+                .willRespondWith()
+                .status(200)
+                .matchHeader(ProductsFetcher.NEXT_CURSOR_HEADER, "\\d+", "1")
+                .body(new PactDslJsonArray()
+                        .object()
+                        .uuid("id", UUID.fromString("01234567-0123-0123-0123-0123456789ab"))
+                        .stringType("name", "Product 1")
+                        .stringType("description", "Product 1 description")
+                        .numberType("price", 1.0)
+                )
+                .given("two existing products")
+                .uponReceiving("a request for the second page of products")
+                .path("/api/products")
+                .query("after=1&limit=1")
+                .method("GET")
+                .willRespondWith()
+                .status(200)
+                .body(new PactDslJsonArray()
+                        .object()
+                        .uuid("id", UUID.fromString("12345678-1234-1234-1234-123456789abc"))
+                        .stringType("name", "Product 2")
+                        .stringType("description", "Product 2 description")
+                        .numberType("price", 2.0)
+                )
+                .toPact();
+    }
+
+    @Test
+    @PactTestFor(pactMethod = "productsPages")
+    void testProductsPages() {
+        ProductResponse[] productResponses = productsFetcher.streamAllProducts(1).toArray(ProductResponse[]::new);
+
+        assertEquals(2, productResponses.length);
+        assertEquals(UUID.fromString("01234567-0123-0123-0123-0123456789ab"), productResponses[0].getId());
+        assertEquals("Product 1", productResponses[0].getName());
+        assertEquals(UUID.fromString("12345678-1234-1234-1234-123456789abc"), productResponses[1].getId());
+        assertEquals("Product 2", productResponses[1].getName());
+    }
+
+    @Pact(consumer = "Customer Application")
+    public RequestResponsePact productNamesPages(PactDslWithProvider builder) {
+        return builder
+                .given("two existing products")
+                .uponReceiving("a request for the first page of product names")
+                .path("/api/products")
+                .query("limit=1&fields=id,name")
+                .method("GET")
+                .willRespondWith()
+                .status(200)
+                .matchHeader(ProductsFetcher.NEXT_CURSOR_HEADER, "\\d+", "1")
+                .body(new PactDslJsonArray()
+                        .object()
+                        .uuid("id", UUID.fromString("01234567-0123-0123-0123-0123456789ab"))
+                        .stringType("name", "Product 1")
+                )
+                .given("two existing products")
+                .uponReceiving("a request for the second page of product names")
+                .path("/api/products")
+                .query("after=1&limit=1&fields=id,name")
+                .method("GET")
+                .willRespondWith()
+                .status(200)
+                .body(new PactDslJsonArray()
+                        .object()
+                        .uuid("id", UUID.fromString("12345678-1234-1234-1234-123456789abc"))
+                        .stringType("name", "Product 2")
+                )
+                .toPact();
+    }
+
+    @Test
+    @PactTestFor(pactMethod = "productNamesPages")
+    void testProductNamesPages() {
+        ProductResponse[] productResponses = productsFetcher.streamAllProducts(1, List.of("id", "name")).toArray(ProductResponse[]::new);
+
+        assertEquals(2, productResponses.length);
+        assertEquals(UUID.fromString("01234567-0123-0123-0123-0123456789ab"), productResponses[0].getId());
+        assertEquals("Product 1", productResponses[0].getName());
+        assertEquals(UUID.fromString("12345678-1234-1234-1234-123456789abc"), productResponses[1].getId());
+        assertEquals("Product 2", productResponses[1].getName());
+    }
+
+    @Pact(consumer = "Customer Application")
+    public RequestResponsePact productName(PactDslWithProvider builder) {
+        return builder
+                .given("one product exists")
+                .uponReceiving("a request for the name of a product")
+                .path("/api/products/01234567-0123-0123-0123-0123456789ab")
+                .query("fields=id,name")
+                .method("GET")
+                .willRespondWith()
+                .status(200)
+                .body(new PactDslJsonBody()
+                        .uuid("id", UUID.fromString("01234567-0123-0123-0123-0123456789ab"))
+                        .stringType("name", "Product 1"))
+                .toPact();
+    }
+
+    @Test
+    @PactTestFor(pactMethod = "productName")
+    void testProductName() throws InvalidProductIdException {
+        ProductsService productsService = new ProductsService(productsFetcher, Optional.empty(), new NoOpProductCache(), Optional.empty());
+
+        assertEquals("Product 1", productsService.getProductName(UUID.fromString("01234567-0123-0123-0123-0123456789ab")));
+    }
+
+    @Pact(consumer = "Customer Application")
+    public RequestResponsePact productChanges(PactDslWithProvider builder) {
+        return builder
+                .given("products changed since sequence 1")
+                .uponReceiving("a request for changes since a sequence")
+                .path("/api/products/changes")
+                .query("since=1&limit=1")
+                .method("GET")
+                .willRespondWith()
+                .status(200)
+                .body(new PactDslJsonBody()
+                        .integerType("sequence", 2L)
+                        .uuid("catalogId", UUID.fromString("fedcba98-7654-3210-fedc-ba9876543210"))
+                        .minArrayLike("products", 1, 1)
+                        .uuid("id", UUID.fromString("12345678-1234-1234-1234-123456789abc"))
+                        .stringType("name", "Product 2")
+                        .stringType("description", "Product 2 description")
+                        .numberType("price", 2.0)
+                        .closeObject()
+                        .closeArray())
+                .toPact();
+    }
+
+    @Test
+    @PactTestFor(pactMethod = "productChanges")
+    void testProductChanges() {
+        ProductChanges changes = productsFetcher.getChanges(1, 1);
+
+        assertEquals(1, changes.getProducts().length);
+        assertEquals(UUID.fromString("12345678-1234-1234-1234-123456789abc"), changes.getProducts()[0].getId());
+        assertEquals("Product 2", changes.getProducts()[0].getName());
+        assertEquals(2, changes.getSequence());
+        assertEquals(UUID.fromString("fedcba98-7654-3210-fedc-ba9876543210"), changes.getCatalogId());
+    }
+
+    @Pact(consumer = "Customer Application")
+    public RequestResponsePact cborProducts(PactDslWithProvider builder) throws JsonProcessingException {
+        ProductResponse product = new ProductResponse(UUID.fromString("01234567-0123-0123-0123-0123456789ab"), "Product 1", "Product 1 description", 1.0);
+
+        return builder
+                .given("existing products")
+                .uponReceiving("a CBOR request for products")
+                .path("/api/products")
+                .method("GET")
+                .matchHeader("Accept", "application/cbor.*", "application/cbor")
+                .willRespondWith()
+                .status(200)
+                .withBinaryData(CBOR_MAPPER.writeValueAsBytes(new ProductResponse[]{product}), "application/cbor")
+                .given("one product exists")
+                .uponReceiving("a CBOR request for a product")
+                .path("/api/products/01234567-0123-0123-0123-0123456789ab")
+                .method("GET")
+                .matchHeader("Accept", "application/cbor.*", "application/cbor")
+                .willRespondWith()
+                .status(200)
+                .withBinaryData(CBOR_MAPPER.writeValueAsBytes(product), "application/cbor")
+                .toPact();
+    }
+
+    @Test
+    @PactTestFor(pactMethod = "cborProducts")
+    void testCborProducts(MockServer mockServer) throws InvalidProductIdException {
+        ProductsFetcher cborFetcher = new ProductsFetcher(new RestTemplateBuilder()
+                .rootUri(mockServer.getUrl())
+                .messageConverters(Config.createMessageConverters(ConsumerProperties.Http.Format.CBOR))
+                .build(), meterRegistry);
+
+        ProductResponse[] productResponses = cborFetcher.getAllProducts();
+        ProductResponse productResponse = cborFetcher.getProduct(UUID.fromString("01234567-0123-0123-0123-0123456789ab"));
+
+        assertEquals(1, productResponses.length);
+        assertEquals(UUID.fromString("01234567-0123-0123-0123-0123456789ab"), productResponses[0].getId());
+        assertEquals("Product 1 description", productResponses[0].getDescription());
+        assertEquals(1.0, productResponses[0].getPrice());
+        assertEquals("Product 1", productResponse.getName());
+    }
+
+    @Pact(consumer = "Customer Application")
+    public RequestResponsePact streamedProducts(PactDslWithProvider builder) {
+        return builder
+                .given("existing products")
+                .uponReceiving("a streamed request for products")
+                .path("/api/products")
+                .method("GET")
+                .matchHeader("Accept", "application/x-ndjson.*", "application/x-ndjson")
+                .willRespondWith()
+                .status(200)
+                .matchHeader("Content-Type", "application/x-ndjson.*", "application/x-ndjson")
+                .body(new PactDslJsonBody()
+                        .uuid("id", UUID.fromString("01234567-0123-0123-0123-0123456789ab"))
+                        .stringType("name", "Product 1")
+                        .stringType("description", "Product 1 description")
+                        .numberType("price", 1.0))
+                .toPact();
+    }
+
+    @Test
+    @PactTestFor(pactMethod = "streamedProducts")
+    void testStreamedProducts() {
+        List<ProductResponse> productResponses = new ArrayList<>();
+        productsFetcher.forEachProduct(productResponses::add);
+
+        assertEquals(1, productResponses.size());
+        assertEquals(UUID.fromString("01234567-0123-0123-0123-0123456789ab"), productResponses.get(0).getId());
+        assertEquals("Product 1", productResponses.get(0).getName());
+        assertEquals("Product 1 description", productResponses.get(0).getDescription());
+        assertEquals(1.0, productResponses.get(0).getPrice());
+    }
+
+    @Pact(consumer = "Customer Application")
+    public RequestResponsePact createProductsBatch(PactDslWithProvider builder) {
+        return builder
+                .given("batch create products")
+                .uponReceiving("a request to create a batch of products")
+                .path("/api/products/batch")
+                .method("POST")
+                .matchHeader("Content-Type", "application/json.*", "application/json")
+                .body(new PactDslJsonArray()
+                        .object()
+                        .stringType("name", "Product 1")
+                        .stringType("description", "Product 1 description")
+                        .numberType("price", 1.0)
+                        .closeObject()
+                        .object()
+                        .stringType("name", "Product 2")
+                        .stringType("description", "Product 2 description")
+                        .numberType("price", 2.0)
+                        .closeObject()
+                )
+                .willRespondWith()
+                .status(200)
+                .body(new PactDslJsonArray()
+                        .object()
+                        .uuid("id", UUID.fromString("01234567-0123-0123-0123-0123456789ab"))
+                        .stringType("name", "Product 1")
+                        .stringType("description", "Product 1 description")
+                        .numberType("price", 1.0)
+                        .closeObject()
+                        .object()
+                        .uuid("id", UUID.fromString("12345678-1234-1234-1234-123456789abc"))
+                        .stringType("name", "Product 2")
+                        .stringType("description", "Product 2 description")
+                        .numberType("price", 2.0)
+                        .closeObject()
+                )
+                .toPact();
+    }
+
+    @Test
+    @PactTestFor(pactMethod = "createProductsBatch")
+    void testCreateProductsBatch() {
+        ProductResponse[] productResponses = productsFetcher.createProducts(List.of(
+                new CreateProduct("Product 1", "Product 1 description", 1.0),
+                new CreateProduct("Product 2", "Product 2 description", 2.0)));
+
+        assertEquals(2, productResponses.length);
+        assertEquals(UUID.fromString("01234567-0123-0123-0123-0123456789ab"), productResponses[0].getId());
+        assertEquals("Product 1", productResponses[0].getName());
+        assertEquals(UUID.fromString("12345678-1234-1234-1234-123456789abc"), productResponses[1].getId());
+        assertEquals("Product 2", productResponses[1].getName());
+    }
+
+    @Test
+    @PactTestFor(pactMethod = "createProductsBatch")
+    void testConcurrentCreatesAreBatched() {
+        try (ProductsBatcher productsBatcher = new ProductsBatcher(productsFetcher, 2, Duration.ofMinutes(1))) {
+            CompletableFuture<ProductResponse> first = CompletableFuture.supplyAsync(
+                    () -> productsBatcher.createProduct("Product 1", "Product 1 description", 1.0)).thenCompose(f -> f);
+            CompletableFuture<ProductResponse> second = CompletableFuture.supplyAsync(
+                    () -> productsBatcher.createProduct("Product 2", "Product 2 description", 2.0)).thenCompose(f -> f);
+
+            assertNotEquals(first.join().getId(), second.join().getId());
+        }
+    }
+
+    @Pact(consumer = "Customer Application")
+    public RequestResponsePact lookupProducts(PactDslWithProvider builder) {
+        return builder
+                .given("one of two looked up products exists")
+                .uponReceiving("a request to look up products by id")
+                .path("/api/products/lookup")
+                .method("POST")
+                .matchHeader("Content-Type", "application/json.*", "application/json")
+                .body(new PactDslJsonArray()
+                        .stringValue("01234567-0123-0123-0123-0123456789ab")
+                        .stringValue("12345678-1234-1234-1234-123456789abc")
+                )
+                .willRespondWith()
+                .status(200)
+                .body(new PactDslJsonBody()
+                        .array("products")
+                        .object()
+                        .uuid("id", UUID.fromString("01234567-0123-0123-0123-0123456789ab"))
+                        .stringType("name", "Product 1")
+                        .stringType("description", "Product 1 description")
+                        .numberType("price", 1.0)
+                        .closeObject()
+                        .closeArray()
+                        .array("missing")
+                        .stringValue("12345678-1234-1234-1234-123456789abc")
+                        .closeArray())
+                .toPact();
+    }
+
+    @Test
+    @PactTestFor(pactMethod = "lookupProducts")
+    void testLookupProductNames() throws InvalidProductIdException {
+        ProductsService productsService = new ProductsService(productsFetcher, Optional.empty(), new NoOpProductCache(), Optional.empty());
+        UUID existingId = UUID.fromString("01234567-0123-0123-0123-0123456789ab");
+        UUID missingId = UUID.fromString("12345678-1234-1234-1234-123456789abc");
+
+        Map<UUID, ProductNameResult> productNames = productsService.getProductNames(List.of(existingId, missingId));
+
+        assertEquals(List.of(existingId, missingId), new ArrayList<>(productNames.keySet()));
+        assertEquals("Product 1", productNames.get(existingId).getName());
+        assertThrows(InvalidProductIdException.class, () -> productNames.get(missingId).getName());
+    }
+
+    @Pact(consumer = "Customer Application")
+    public RequestResponsePact productsNotModified(PactDslWithProvider builder) {
+        return builder
+                .given("one existing product in catalog fedcba98-7654-3210-fedc-ba9876543210")
+                .uponReceiving("a request for products to cache")
+                .path("/api/products")
+                .method("GET")
+                .willRespondWith()
+                .status(200)
+                .matchHeader("ETag", "\"products-[0-9a-f-]+-\\d+\"", "\"products-fedcba98-7654-3210-fedc-ba9876543210-1\"")
+                .body(new PactDslJsonArray()
+                        .object()
+                        .uuid("id", UUID.fromString("01234567-0123-0123-0123-0123456789ab"))
+                        .stringType("name", "Product 1")
+                        .stringType("description", "Product 1 description")
+                        .numberType("price", 1.0)
+                )
+                .given("one existing product in catalog fedcba98-7654-3210-fedc-ba9876543210")
+                .uponReceiving("a conditional request for unchanged products")
+                .path("/api/products")
+                .method("GET")
+                .headers("If-None-Match", "\"products-fedcba98-7654-3210-fedc-ba9876543210-1\"")
+                .willRespondWith()
+                .status(304)
+                .toPact();
+    }
+
+    @Test
+    @PactTestFor(pactMethod = "productsNotModified")
+    void testProductsNotModified() {
+        ProductResponse[] productResponses = productsFetcher.getAllProducts();
+        ProductResponse[] revalidatedResponses = productsFetcher.getAllProducts();
+
+        assertSame(productResponses, revalidatedResponses);
+        assertEquals(UUID.fromString("01234567-0123-0123-0123-0123456789ab"), revalidatedResponses[0].getId());
+        assertEquals("Product 1", revalidatedResponses[0].getName());
+    }
+
+    @Pact(consumer = "Customer Application")
+    public RequestResponsePact productNotModified(PactDslWithProvider builder) {
+        return builder
+                .given("one product exists")
+                .uponReceiving("a request for a product to cache")
+                .path("/api/products/01234567-0123-0123-0123-0123456789ab")
+                .method("GET")
+                .willRespondWith()
+                .status(200)
+                .matchHeader("ETag", "\"product-[0-9a-f-]+\"", "\"product-01234567-0123-0123-0123-0123456789ab\"")
+                .body(new PactDslJsonBody()
+                        .uuid("id", UUID.fromString("01234567-0123-0123-0123-0123456789ab"))
+                        .stringType("name", "Product 1")
+                        .stringType("description", "Product 1 description")
+                        .numberType("price", 1.0))
+                .given("one product exists")
+                .uponReceiving("a conditional request for an unchanged product")
+                .path("/api/products/01234567-0123-0123-0123-0123456789ab")
+                .method("GET")
+                .headers("If-None-Match", "\"product-01234567-0123-0123-0123-0123456789ab\"")
+                .willRespondWith()
+                .status(304)
+                .toPact();
+    }
+
+    @Test
+    @PactTestFor(pactMethod = "productNotModified")
+    void testProductNotModified() throws InvalidProductIdException {
+        UUID id = UUID.fromString("01234567-0123-0123-0123-0123456789ab");
+        ProductResponse productResponse = productsFetcher.getProduct(id);
+        ProductResponse revalidatedResponse = productsFetcher.getProduct(id);
+
+        assertSame(productResponse, revalidatedResponse);
+        assertEquals(id, revalidatedResponse.getId());
+        assertEquals("Product 1", revalidatedResponse.getName());
+    }
+
+    @Test
+    @PactTestFor(pactMethod = "oneProductExists")
+    void testConcurrentIdenticalRequestsShareOneCall(MockServer mockServer) throws Exception {
+        int callers = 16;
+        CountDownLatch arrived = new CountDownLatch(callers);
+        AtomicInteger requests = new AtomicInteger();
+        RestTemplate restTemplate = new RestTemplateBuilder()
+                .rootUri(mockServer.getUrl())
+                .additionalInterceptors((request, body, execution) -> {
+                    requests.incrementAndGet();
+                    try {
+                        arrived.await(5, TimeUnit.SECONDS);
+                        Thread.sleep(200);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+
+                    return execution.execute(request, body);
+                })
+                .build();
+        ProductsFetcher sharedFetcher = new ProductsFetcher(restTemplate, meterRegistry);
+        UUID id = UUID.fromString("01234567-0123-0123-0123-0123456789ab");
+
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        List<Future<ProductResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            responses.add(executor.submit(() -> {
+                arrived.countDown();
+                return sharedFetcher.getProduct(id);
+            }));
+        }
+
+        for (Future<ProductResponse> response : responses) {
+            assertEquals(id, response.get(10, TimeUnit.SECONDS).getId());
+        }
+        executor.shutdown();
+
+        assertEquals(1, requests.get());
+    }
+
+    @Pact(consumer = "Customer Application")
+    public RequestResponsePact searchProducts(PactDslWithProvider builder) {
+        return builder
+                .given("products in store 55 priced between 1 and 2")
+                .uponReceiving("a search for products by store and price range")
+                .path("/api/products/search")
+                .query("storeId=55&minPrice=1.0&maxPrice=2.0&limit=10")
+                .method("GET")
+                .willRespondWith()
+                .status(200)
+                .body(new PactDslJsonArray()
+                        .object()
+                        .uuid("id", UUID.fromString("01234567-0123-0123-0123-0123456789ab"))
+                        .stringType("name", "Product 1")
+                        .stringType("description", "Product 1 description")
+                        .numberType("price", 1.5)
+                )
+                .given("no products in store 99")
+                .uponReceiving("a search for products in a store without products")
+                .path("/api/products/search")
+                .query("storeId=99&limit=10")
+                .method("GET")
+                .willRespondWith()
+                .status(200)
+                .body(new PactDslJsonArray())
+                .toPact();
+    }
+
+    @Test
+    @PactTestFor(pactMethod = "searchProducts")
+    void testSearchProducts() {
+        ProductResponse[] productResponses = productsFetcher.searchProducts(55, 1.0, 2.0, 10);
+        ProductResponse[] emptyStore = productsFetcher.searchProducts(99, null, null, 10);
+
+        assertEquals(1, productResponses.length);
+        assertEquals(UUID.fromString("01234567-0123-0123-0123-0123456789ab"), productResponses[0].getId());
+        assertEquals(1.5, productResponses[0].getPrice());
+        assertEquals(0, emptyStore.length);
+    }
+
+    @Pact(consumer = "Customer Application")
+    @LatencyBudget(interaction = "a full-text search for products", percentile = 99, millis = 100)
+    public RequestResponsePact searchProductsByText(PactDslWithProvider builder) {
+        return builder
+                .given("products matching the text query")
+                .uponReceiving("a full-text search for products")
+                .path("/api/products/search/text")
+                .query("q=wireless mou&limit=5")
+                .method("GET")
+                .willRespondWith()
+                .status(200)
+                .body(new PactDslJsonArray()
+                        .object()
+                        .uuid("id", UUID.fromString("01234567-0123-0123-0123-0123456789ab"))
+                        .stringType("name", "Wireless mouse")
+                        .stringType("description", "A mouse without a cable")
+                        .numberType("price", 20.0)
+                )
+                .toPact();
+    }
+
+    @Test
+    @PactTestFor(pactMethod = "searchProductsByText")
+    void testSearchProductsByText() {
+        ProductResponse[] productResponses = productsFetcher.searchProductsByText("wireless mou", 5);
+
+        assertEquals(1, productResponses.length);
+        assertEquals(UUID.fromString("01234567-0123-0123-0123-0123456789ab"), productResponses[0].getId());
+        assertEquals("Wireless mouse", productResponses[0].getName());
+    }
+
+    @Test
+    @PactTestFor(pactMethod = "existingProducts")
+    void testExistingProductsAsync() {
+        ProductResponse[] productResponses = asyncProductsFetcher.getAllProducts().join();
+        ProductResponse productResponse = productResponses[0];
+
+        assertEquals(UUID.fromString("01234567-0123-0123-0123-0123456789ab"), productResponse.getId());
+        assertEquals("Product 1", productResponse.getName());
+        assertEquals("Product 1 description", productResponse.getDescription());
+        assertEquals(1.0, productResponse.getPrice());
+    }
+
+    @Test
+    @PactTestFor(pactMethod = "oneProductExists")
+    void testOneProductExistsAsync() {
+        ProductResponse productResponse = asyncProductsFetcher.getProduct(UUID.fromString("01234567-0123-0123-0123-0123456789ab")).join();
+
+        assertEquals(UUID.fromString("01234567-0123-0123-0123-0123456789ab"), productResponse.getId());
+        assertEquals("Product 1", productResponse.getName());
+        assertEquals("Product 1 description", productResponse.getDescription());
+        assertEquals(1.0, productResponse.getPrice());
+    }
+
+    @Test
+    @PactTestFor(pactMethod = "oneProductDoesNotExist")
+    void testOneProductDoesNotExistAsync() {
+        CompletableFuture<ProductResponse> productResponse = asyncProductsFetcher.getProduct(UUID.fromString("01234567-0123-0123-0123-0123456789ab"));
+
+        CompletionException completionException = assertThrows(CompletionException.class, productResponse::join);
+        assertInstanceOf(InvalidProductIdException.class, completionException.getCause());
+    }
+
+    @Test
+    @PactTestFor(pactMethod = "createProduct")
+    void testCreateProductAsync() {
+        ProductResponse productResponse = asyncProductsFetcher.createProduct("Product 1", "Product 1 description", 1.0).join();
+
+        assertEquals(UUID.fromString("01234567-0123-0123-0123-0123456789ab"), productResponse.getId());
+        assertEquals("Product 1", productResponse.getName());
+        assertEquals("Product 1 description", productResponse.getDescription());
+        assertEquals(1.0, productResponse.getPrice());
+    }
+
+    @Test
+    @PactTestFor(pactMethod = "getProductByIndexExists")
+    void testProductByIndexExistsAsync() {
+        ProductResponse productResponse = asyncProductsFetcher.getProductByIndex(0).join();
+
+        assertEquals(UUID.fromString("01234567-0123-0123-0123-0123456789ab"), productResponse.getId());
+        assertEquals("Product 1", productResponse.getName());
+        assertEquals("Product 1 description", productResponse.getDescription());
+        assertEquals(1.0, productResponse.getPrice());
+    }
+
+    @Test
+    @PactTestFor(pactMethod = "getProductByIndexNotExists")
+    void testProductByIndexNotExistsAsync() {
+        CompletableFuture<ProductResponse> productResponse = asyncProductsFetcher.getProductByIndex(-1);
+
+        CompletionException completionException = assertThrows(CompletionException.class, productResponse::join);
+        assertEquals("The product at index -1 does not exist", completionException.getCause().getMessage());
+    }
 }
@@ -0,0 +1,208 @@
+package consumer.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import consumer.cache.NoOpProductCache;
+import consumer.config.Config;
+import consumer.config.ConsumerProperties;
+import consumer.contracts.ProductChanges;
+import consumer.contracts.ProductResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
+import provider.MainProductsProvider;
+import provider.contracts.CreateProduct;
+import provider.contracts.ProviderProductResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Keeps a replica up to date from the events of a real provider, and of a stub provider that restarts with a
+ * smaller catalog.
+ */
+@SpringBootTest(classes = MainProductsProvider.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class ProductEventsSubscriberTests {
+    @LocalServerPort
+    private int serverPort;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private provider.services.ProductsService productsService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void testPushesCreatedProductsToTheReplica() {
+        String providerUrl = "http://localhost:" + serverPort;
+        ProductsReplica replica = new ProductsReplica(fetcher(providerUrl), 100, Duration.ofHours(1));
+
+        try (ProductEventsSubscriber subscriber = new ProductEventsSubscriber(HttpClient.newHttpClient(), objectMapper,
+                providerUrl, Optional.of(replica), new NoOpProductCache(), Duration.ofMillis(100))) {
+            subscriber.start();
+            await(() -> subscriber.getLastEventId() != null);
+
+            ProviderProductResponse created = restTemplate.postForObject("/api/products",
+                    new CreateProduct("pushed", "pushed product", 5), ProviderProductResponse.class);
+
+            String lastEventId = productsService.getCatalogId() + ":" + productsService.getProducts().size();
+            await(() -> lastEventId.equals(subscriber.getLastEventId()));
+            assertEquals(productsService.getProducts().size(), replica.getSequence());
+            assertEquals("pushed", replica.getProduct(created.getId()).orElseThrow().getName());
+        }
+    }
+
+    @Test
+    void testStartsOverWhenTheProviderRestartsWithASmallerCatalog() throws Exception {
+        try (StubProvider stub = new StubProvider(catalog(5))) {
+            ProductsReplica replica = new ProductsReplica(fetcher(stub.url()), 100, Duration.ofHours(1));
+            replica.refresh();
+            String resumedFrom = stub.catalogId + ":5";
+
+            try (ProductEventsSubscriber subscriber = new ProductEventsSubscriber(HttpClient.newHttpClient(), objectMapper,
+                    stub.url(), Optional.of(replica), new NoOpProductCache(), Duration.ofMillis(20))) {
+                subscriber.start();
+                await(() -> stub.lastEventIds.contains(resumedFrom));
+
+                ProductResponse[] restarted = catalog(3);
+                stub.restart(restarted);
+                await(() -> stub.rejected.get() > 0 && stub.lastEventIds.get(stub.lastEventIds.size() - 1).isEmpty());
+
+                assertEquals(1, stub.rejected.get());
+                assertEquals(Arrays.stream(restarted).map(ProductResponse::getName).collect(Collectors.toList()), replica.getProductNames());
+                assertEquals(stub.catalogId, replica.getCatalogId());
+            }
+        }
+    }
+
+    private static ProductsFetcher fetcher(String providerUrl) {
+        return new ProductsFetcher(new RestTemplateBuilder()
+                .rootUri(providerUrl)
+                .messageConverters(Config.createMessageConverters(ConsumerProperties.Http.Format.JSON))
+                .build(), new SimpleMeterRegistry());
+    }
+
+    private static ProductResponse[] catalog(int size) {
+        ProductResponse[] products = new ProductResponse[size];
+        for (int i = 0; i < size; i++) {
+            products[i] = new ProductResponse(UUID.randomUUID(), "product " + i, "description " + i, i);
+        }
+
+        return products;
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() - deadline > 0) {
+                fail("Condition not met in time");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("Interrupted");
+            }
+        }
+    }
+
+    /**
+     * Serves the change feed and event streams that end after their first heartbeat, so that the subscriber keeps
+     * reconnecting with its last event id. Ids of another catalog are rejected like the provider does.
+     */
+    private final class StubProvider implements AutoCloseable {
+        private final HttpServer server;
+        private final ExecutorService executor = Executors.newCachedThreadPool();
+        private final List<String> lastEventIds = new CopyOnWriteArrayList<>();
+        private final AtomicInteger rejected = new AtomicInteger();
+        private volatile UUID catalogId;
+        private volatile ProductResponse[] products;
+
+        private StubProvider(ProductResponse[] products) throws IOException {
+            restart(products);
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.setExecutor(executor);
+            server.createContext("/api/products/changes", this::changes);
+            server.createContext("/api/products/events", this::events);
+            server.start();
+        }
+
+        private void restart(ProductResponse[] products) {
+            this.products = products;
+            this.catalogId = UUID.randomUUID();
+        }
+
+        private String url() {
+            return "http://localhost:" + server.getAddress().getPort();
+        }
+
+        private void changes(HttpExchange exchange) throws IOException {
+            Map<String, String> query = UriComponentsBuilder.fromUri(exchange.getRequestURI()).build().getQueryParams().toSingleValueMap();
+            ProductResponse[] current = products;
+            int since = Integer.parseInt(query.get("since"));
+            if (since > current.length) {
+                respond(exchange, 400, "application/json", "{\"error\":\"Bad Request\"}");
+                return;
+            }
+
+            ProductResponse[] page = Arrays.copyOfRange(current, since, Math.min(current.length, since + Integer.parseInt(query.get("limit"))));
+            respond(exchange, 200, "application/json",
+                    objectMapper.writeValueAsString(new ProductChanges(page, since + page.length, catalogId)));
+        }
+
+        private void events(HttpExchange exchange) throws IOException {
+            String lastEventId = exchange.getRequestHeaders().getFirst(ProductEventsSubscriber.LAST_EVENT_ID_HEADER);
+            lastEventIds.add(lastEventId == null ? "" : lastEventId);
+            String current = catalogId + ":" + products.length;
+            if (lastEventId != null && !lastEventId.startsWith(catalogId + ":")) {
+                rejected.incrementAndGet();
+                respond(exchange, 400, "application/json", "{\"error\":\"Bad Request\"}");
+                return;
+            }
+
+            respond(exchange, 200, "text/event-stream", "event:heartbeat\ndata:" + current + "\n\n");
+        }
+
+        private void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(bytes);
+            }
+        }
+
+        @Override
+        public void close() {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package consumer.services;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import consumer.config.Config;
+import consumer.config.ConsumerProperties;
+import consumer.contracts.ProductResponse;
+import consumer.exceptions.CircuitOpenException;
+import consumer.exceptions.DeadlineExceededException;
+import consumer.resilience.CircuitBreaker;
+import consumer.resilience.ResilientCalls;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the fetcher against a local stub provider whose responses can be delayed or failed one by one.
+ */
+public class ProductsFetcherResilienceTests {
+    private static final UUID PRODUCT_ID = UUID.fromString("01234567-0123-0123-0123-0123456789ab");
+    private static final String PRODUCT_JSON = "{\"id\":\"" + PRODUCT_ID + "\",\"name\":\"Product 1\",\"description\":\"Product 1 description\",\"price\":1.0}";
+    private static final StubResponse UNAVAILABLE = new StubResponse(503, "{\"error\":\"Service Unavailable\"}", Duration.ZERO);
+    private static final StubResponse SERVER_ERROR = new StubResponse(500, "{\"error\":\"Internal Server Error\"}", Duration.ZERO);
+
+    private final ConcurrentLinkedQueue<StubResponse> scripted = new ConcurrentLinkedQueue<>();
+    private final List<String> idempotencyKeys = new CopyOnWriteArrayList<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private HttpServer stub;
+    private ExecutorService stubExecutor;
+    private ResilientCalls resilientCalls;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        stub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stubExecutor = Executors.newCachedThreadPool();
+        stub.setExecutor(stubExecutor);
+        stub.createContext("/api/products", this::handle);
+        stub.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        if (resilientCalls != null) {
+            resilientCalls.close();
+        }
+        stub.stop(0);
+        stubExecutor.shutdownNow();
+    }
+
+    @Test
+    void testAbandonsReadsThatMissTheirDeadline() {
+        ConsumerProperties.Resilience resilience = resilience();
+        resilience.getDeadlines().put("getProduct", Duration.ofMillis(200));
+        ProductsFetcher productsFetcher = fetcher(resilience);
+        scripted.add(new StubResponse(200, PRODUCT_JSON, Duration.ofSeconds(3)));
+
+        long started = System.nanoTime();
+        assertThrows(DeadlineExceededException.class, () -> productsFetcher.getProduct(PRODUCT_ID));
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - started).compareTo(Duration.ofSeconds(1)) < 0);
+    }
+
+    @Test
+    void testHedgesReadsSlowerThanTheirRecentPercentile() throws Exception {
+        ProductsFetcher productsFetcher = fetcher(resilience());
+        for (int i = 0; i < 30; i++) {
+            productsFetcher.getProduct(PRODUCT_ID);
+        }
+        int requestsBefore = requests.get();
+        scripted.add(new StubResponse(200, PRODUCT_JSON, Duration.ofSeconds(3)));
+
+        long started = System.nanoTime();
+        ProductResponse product = productsFetcher.getProduct(PRODUCT_ID);
+
+        assertEquals(PRODUCT_ID, product.getId());
+        assertTrue(Duration.ofNanos(System.nanoTime() - started).compareTo(Duration.ofSeconds(1)) < 0);
+        assertEquals(requestsBefore + 2, requests.get());
+    }
+
+    @Test
+    void testFailsFastWhileTheCircuitIsOpen() throws Exception {
+        ConsumerProperties.Resilience resilience = resilience();
+        resilience.setMaxAttempts(1);
+        resilience.getCircuitBreaker().setFailureThreshold(3);
+        resilience.getCircuitBreaker().setOpenDuration(Duration.ofMillis(300));
+        ProductsFetcher productsFetcher = fetcher(resilience);
+
+        for (int i = 0; i < 3; i++) {
+            scripted.add(UNAVAILABLE);
+            assertThrows(HttpServerErrorException.class, () -> productsFetcher.getProduct(PRODUCT_ID));
+        }
+        assertThrows(CircuitOpenException.class, () -> productsFetcher.getProduct(PRODUCT_ID));
+        assertEquals(3, requests.get());
+        assertEquals(CircuitBreaker.State.OPEN, resilientCalls.getCircuitState());
+
+        Thread.sleep(400);
+        assertEquals(PRODUCT_ID, productsFetcher.getProduct(PRODUCT_ID).getId());
+        assertEquals(CircuitBreaker.State.CLOSED, resilientCalls.getCircuitState());
+    }
+
+    @Test
+    void testCountsServerErrorsAsFailuresExceptForMissingIndexes() {
+        ConsumerProperties.Resilience resilience = resilience();
+        resilience.setMaxAttempts(1);
+        resilience.getCircuitBreaker().setFailureThreshold(3);
+        ProductsFetcher productsFetcher = fetcher(resilience);
+
+        for (int i = 0; i < 3; i++) {
+            scripted.add(SERVER_ERROR);
+            RuntimeException missing = assertThrows(RuntimeException.class, () -> productsFetcher.getProductByIndex(10));
+            assertEquals("The product at index 10 does not exist", missing.getMessage());
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, resilientCalls.getCircuitState());
+        assertEquals(3, meterRegistry.get(ProductsFetcher.REQUESTS_METRIC)
+                .tags("operation", "getProductByIndex", "outcome", "server_error")
+                .timer().count());
+
+        for (int i = 0; i < 3; i++) {
+            scripted.add(SERVER_ERROR);
+            assertThrows(HttpServerErrorException.class, () -> productsFetcher.getProduct(PRODUCT_ID));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, resilientCalls.getCircuitState());
+    }
+
+    @Test
+    void testRejectsCallsWithoutBlamingTheProviderWhileAllAttemptThreadsAreBusy() {
+        ConsumerProperties.Resilience resilience = resilience();
+        resilience.setMaxAttempts(1);
+        resilience.setMaxInFlightAttempts(1);
+        resilience.getDeadlines().put("getProduct", Duration.ofMillis(200));
+        resilience.getCircuitBreaker().setFailureThreshold(2);
+        ProductsFetcher productsFetcher = fetcher(resilience);
+        scripted.add(new StubResponse(200, PRODUCT_JSON, Duration.ofSeconds(3)));
+
+        assertThrows(DeadlineExceededException.class, () -> productsFetcher.getProduct(PRODUCT_ID));
+        for (int i = 0; i < 3; i++) {
+            ResourceAccessException rejected = assertThrows(ResourceAccessException.class, () -> productsFetcher.getProduct(PRODUCT_ID));
+            assertTrue(rejected.getMessage().contains("in flight"), rejected.getMessage());
+        }
+
+        assertEquals(1, requests.get());
+        assertEquals(CircuitBreaker.State.CLOSED, resilientCalls.getCircuitState());
+    }
+
+    @Test
+    void testRetriesCreatesOnlyUnderAnIdempotencyKey() {
+        ProductsFetcher productsFetcher = fetcher(resilience());
+
+        scripted.add(UNAVAILABLE);
+        assertThrows(HttpServerErrorException.class, () -> productsFetcher.createProduct("Product 1", "Product 1 description", 1.0));
+        assertEquals(1, requests.get());
+
+        scripted.add(UNAVAILABLE);
+        ProductResponse created = productsFetcher.createProduct("Product 1", "Product 1 description", 1.0, "create-product-1");
+
+        assertEquals(PRODUCT_ID, created.getId());
+        assertEquals(3, requests.get());
+        assertEquals(List.of("create-product-1", "create-product-1"), idempotencyKeys);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        String idempotencyKey = exchange.getRequestHeaders().getFirst(ProductsFetcher.IDEMPOTENCY_KEY_HEADER);
+        if (idempotencyKey != null) {
+            idempotencyKeys.add(idempotencyKey);
+        }
+        exchange.getRequestBody().readAllBytes();
+
+        StubResponse response = scripted.poll();
+        if (response == null) {
+            response = new StubResponse(200, PRODUCT_JSON, Duration.ZERO);
+        }
+        try {
+            Thread.sleep(response.delay.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(response.status, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    private ProductsFetcher fetcher(ConsumerProperties.Resilience resilience) {
+        resilientCalls = new ResilientCalls(resilience, new SimpleMeterRegistry());
+
+        return new ProductsFetcher(new RestTemplateBuilder()
+                .rootUri("http://localhost:" + stub.getAddress().getPort())
+                .requestFactory(() -> Config.createRequestFactory(new ConsumerProperties.Http()))
+                .messageConverters(Config.createMessageConverters(ConsumerProperties.Http.Format.JSON))
+                .build(), meterRegistry, resilientCalls);
+    }
+
+    private static ConsumerProperties.Resilience resilience() {
+        ConsumerProperties.Resilience resilience = new ConsumerProperties.Resilience();
+        resilience.setEnabled(true);
+        resilience.getHedging().setMinDelay(Duration.ofMillis(50));
+
+        return resilience;
+    }
+
+    private static final class StubResponse {
+        private final int status;
+        private final String body;
+        private final Duration delay;
+
+        private StubResponse(int status, String body, Duration delay) {
+            this.status = status;
+            this.body = body;
+            this.delay = delay;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package consumer.services;
+
+import consumer.contracts.ProductChanges;
+import consumer.contracts.ProductResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ProductsReplicaTests {
+    private static final UUID CATALOG = UUID.randomUUID();
+
+    private final AtomicLong now = new AtomicLong();
+    private final ProductsFetcher productsFetcher = mock(ProductsFetcher.class);
+    private final ProductsReplica replica = new ProductsReplica(productsFetcher, 2, Duration.ofSeconds(5), now::get);
+
+    private static ProductResponse product(String name) {
+        return new ProductResponse(UUID.randomUUID(), name, name + " description", 1.0);
+    }
+
+    @Test
+    void testFirstReadDownloadsTheCatalogPageByPage() {
+        ProductResponse first = product("Product 1");
+        ProductResponse second = product("Product 2");
+        ProductResponse third = product("Product 3");
+        when(productsFetcher.getChanges(0, 2)).thenReturn(new ProductChanges(new ProductResponse[]{first, second}, 2, CATALOG));
+        when(productsFetcher.getChanges(2, 2)).thenReturn(new ProductChanges(new ProductResponse[]{third}, 3, CATALOG));
+
+        assertEquals(List.of("Product 1", "Product 2", "Product 3"), replica.getProductNames());
+        assertEquals(Optional.of(second), replica.getProduct(second.getId()));
+        assertEquals(3, replica.getSequence());
+        verify(productsFetcher).getChanges(0, 2);
+        verify(productsFetcher).getChanges(2, 2);
+    }
+
+    @Test
+    void testOnlyChangesAreFetchedOnceStale() {
+        ProductResponse first = product("Product 1");
+        ProductResponse second = product("Product 2");
+        when(productsFetcher.getChanges(0, 2)).thenReturn(new ProductChanges(new ProductResponse[]{first}, 1, CATALOG));
+        when(productsFetcher.getChanges(1, 2)).thenReturn(new ProductChanges(new ProductResponse[]{second}, 2, CATALOG));
+
+        assertEquals(List.of("Product 1"), replica.getProductNames());
+        now.addAndGet(Duration.ofSeconds(4).toNanos());
+        assertEquals(List.of("Product 1"), replica.getProductNames());
+        verify(productsFetcher, never()).getChanges(1, 2);
+
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertEquals(List.of("Product 1", "Product 2"), replica.getProductNames());
+        assertEquals(Optional.of(second), replica.getProduct(second.getId()));
+        assertEquals(2, replica.getSequence());
+    }
+
+    @Test
+    void testFailedRefreshKeepsTheAppliedChanges() {
+        ProductResponse first = product("Product 1");
+        ProductResponse second = product("Product 2");
+        ProductResponse third = product("Product 3");
+        when(productsFetcher.getChanges(0, 2)).thenReturn(new ProductChanges(new ProductResponse[]{first, second}, 2, CATALOG));
+        when(productsFetcher.getChanges(2, 2))
+                .thenThrow(new IllegalStateException("provider unavailable"))
+                .thenReturn(new ProductChanges(new ProductResponse[]{third}, 3, CATALOG));
+
+        assertThrows(IllegalStateException.class, replica::getProductNames);
+        assertEquals(2, replica.getSequence());
+
+        assertEquals(List.of("Product 1", "Product 2", "Product 3"), replica.getProductNames());
+    }
+
+    @Test
+    void testPushedProductsAreAppliedInOrder() {
+        ProductResponse first = product("Product 1");
+        ProductResponse second = product("Product 2");
+        ProductResponse third = product("Product 3");
+        ProductResponse fourth = product("Product 4");
+        when(productsFetcher.getChanges(0, 2)).thenReturn(new ProductChanges(new ProductResponse[]{first}, 1, CATALOG));
+        when(productsFetcher.getChanges(3, 2)).thenReturn(new ProductChanges(new ProductResponse[]{fourth}, 4, CATALOG));
+
+        replica.refresh();
+        replica.apply(CATALOG, 3, new ProductResponse[]{first, second, third});
+        assertEquals(List.of("Product 1", "Product 2", "Product 3"), replica.getProductNames());
+
+        replica.apply(CATALOG, 5, new ProductResponse[]{product("Product 5")});
+        assertEquals(List.of("Product 1", "Product 2", "Product 3", "Product 4"), replica.getProductNames());
+        assertEquals(4, replica.getSequence());
+    }
+
+    @Test
+    void testHeartbeatsKeepTheReplicaFresh() {
+        when(productsFetcher.getChanges(0, 2)).thenReturn(new ProductChanges(new ProductResponse[]{product("Product 1")}, 1, CATALOG));
+
+        replica.refresh();
+        now.addAndGet(Duration.ofSeconds(4).toNanos());
+        replica.confirm(CATALOG, 1);
+        now.addAndGet(Duration.ofSeconds(4).toNanos());
+        replica.confirm(CATALOG, 2);
+
+        assertEquals(List.of("Product 1"), replica.getProductNames());
+        verify(productsFetcher).getChanges(0, 2);
+        verify(productsFetcher, never()).getChanges(1, 2);
+    }
+
+    @Test
+    void testStartsOverWhenTheProviderHasAnotherCatalog() {
+        UUID restarted = UUID.randomUUID();
+        ProductResponse first = product("Product 1");
+        ProductResponse reseeded = product("Reseeded 1");
+        ProductResponse reseededSecond = product("Reseeded 2");
+        when(productsFetcher.getChanges(0, 2))
+                .thenReturn(new ProductChanges(new ProductResponse[]{first}, 1, CATALOG))
+                .thenReturn(new ProductChanges(new ProductResponse[]{reseeded, reseededSecond}, 2, restarted));
+        when(productsFetcher.getChanges(1, 2)).thenReturn(new ProductChanges(new ProductResponse[]{reseededSecond}, 2, restarted));
+        when(productsFetcher.getChanges(2, 2)).thenReturn(new ProductChanges(new ProductResponse[0], 2, restarted));
+
+        replica.refresh();
+        replica.refresh();
+
+        assertEquals(List.of("Reseeded 1", "Reseeded 2"), replica.getProductNames());
+        assertEquals(Optional.empty(), replica.getProduct(first.getId()));
+        assertEquals(restarted, replica.getCatalogId());
+        assertEquals(2, replica.getSequence());
+    }
+
+    @Test
+    void testStartsOverWhenTheSequenceIsRejected() {
+        UUID restarted = UUID.randomUUID();
+        ProductResponse reseeded = product("Reseeded 1");
+        when(productsFetcher.getChanges(0, 2))
+                .thenReturn(new ProductChanges(new ProductResponse[]{product("Product 1"), product("Product 2")}, 2, CATALOG))
+                .thenReturn(new ProductChanges(new ProductResponse[]{reseeded}, 1, restarted));
+        when(productsFetcher.getChanges(2, 2))
+                .thenReturn(new ProductChanges(new ProductResponse[0], 2, CATALOG))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "Bad Request", null, null, null));
+
+        replica.refresh();
+        replica.refresh();
+
+        assertEquals(List.of("Reseeded 1"), replica.getProductNames());
+        assertEquals(restarted, replica.getCatalogId());
+        assertEquals(1, replica.getSequence());
+    }
+
+    @Test
+    void testPushedProductsOfAnotherCatalogStartOver() {
+        UUID restarted = UUID.randomUUID();
+        ProductResponse reseeded = product("Reseeded 1");
+        when(productsFetcher.getChanges(0, 2))
+                .thenReturn(new ProductChanges(new ProductResponse[]{product("Product 1")}, 1, CATALOG))
+                .thenReturn(new ProductChanges(new ProductResponse[]{reseeded}, 1, restarted));
+        when(productsFetcher.getChanges(1, 2)).thenReturn(new ProductChanges(new ProductResponse[]{}, 1, restarted));
+
+        replica.refresh();
+        replica.confirm(restarted, 1);
+        replica.apply(restarted, 1, new ProductResponse[]{reseeded});
+
+        assertEquals(List.of("Reseeded 1"), replica.getProductNames());
+        assertEquals(restarted, replica.getCatalogId());
+    }
+}
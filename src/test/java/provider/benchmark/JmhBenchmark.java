@@ -0,0 +1,32 @@
+package provider.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks (classes named *Jmh) and writes their results as JSON, by default to
+ * {@code target/jmh-result.json}. Select benchmarks with {@code -Djmh.include=<regex>} and change the result
+ * file with {@code -Djmh.result=<file>}. Run with {@code mvn test -Pbenchmark -Dtest=JmhBenchmark}.
+ */
+public class JmhBenchmark {
+    @Test
+    void run() throws RunnerException {
+        // Surefire runs tests in an isolated class loader; the forked benchmark JVMs need the real test class path.
+        String testClassPath = System.getProperty("surefire.test.class.path");
+        if (testClassPath != null) {
+            System.setProperty("java.class.path", testClassPath);
+        }
+
+        Options options = new OptionsBuilder()
+                .include(System.getProperty("jmh.include", ".*Jmh.*"))
+                .resultFormat(ResultFormatType.JSON)
+                .result(System.getProperty("jmh.result", System.getProperty("buildDirectory", "target") + "/jmh-result.json"))
+                .build();
+
+        new Runner(options).run();
+    }
+}
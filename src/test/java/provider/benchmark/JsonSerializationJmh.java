@@ -0,0 +1,73 @@
+package provider.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import consumer.contracts.ProductResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import provider.config.ProviderProperties;
+import provider.contracts.ProviderProductResponse;
+import provider.controllers.ProductJsonCache;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes provider product lists and deserializes them into consumer {@link ProductResponse} arrays with an
+ * object mapper configured like Spring's, and builds the same lists from the {@link ProductJsonCache}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationJmh {
+    @Param({"1", "100", "1000"})
+    private int products;
+
+    private ObjectMapper objectMapper;
+    private ProductJsonCache productJsonCache;
+    private List<ProviderProductResponse> productList;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = new Jackson2ObjectMapperBuilder().build();
+        productList = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            productList.add(new ProviderProductResponse(UUID.randomUUID(), "product " + i, "description of product " + i, i, "store " + i % 10, i % 10));
+        }
+        json = objectMapper.writeValueAsBytes(productList);
+
+        productJsonCache = new ProductJsonCache(objectMapper, new ProviderProperties());
+        productList.forEach(productJsonCache::put);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return objectMapper.writeValueAsBytes(productList);
+    }
+
+    @Benchmark
+    public byte[] serializeCached() {
+        return productJsonCache.getArray(productList);
+    }
+
+    @Benchmark
+    public ProductResponse[] deserialize() throws IOException {
+        return objectMapper.readValue(json, ProductResponse[].class);
+    }
+}
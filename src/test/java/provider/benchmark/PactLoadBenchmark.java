@@ -0,0 +1,30 @@
+package provider.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import provider.MainProductsProvider;
+
+/**
+ * Runs the {@link PactLoadGenerator} from the benchmark profile; see the generator for the available system
+ * properties. Without {@code load.url} the provider is started in-process on a random port. Run with
+ * {@code mvn test -Pbenchmark -Dtest=PactLoadBenchmark}.
+ */
+public class PactLoadBenchmark {
+    @Test
+    void replayPacts() throws Exception {
+        String url = System.getProperty("load.url");
+        if (url != null) {
+            PactLoadGenerator.fromSystemProperties(url).run();
+            return;
+        }
+
+        try (ConfigurableApplicationContext provider = new SpringApplicationBuilder(MainProductsProvider.class)
+                .properties("server.port=0", "logging.level.root=WARN")
+                .run()) {
+            int port = ((ServletWebServerApplicationContext) provider).getWebServer().getPort();
+            PactLoadGenerator.fromSystemProperties("http://localhost:" + port).run();
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package provider.benchmark;
+
+import au.com.dius.pact.core.model.DefaultPactReader;
+import au.com.dius.pact.core.model.IRequest;
+import au.com.dius.pact.core.model.Interaction;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import provider.pact.PactRequests;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays the interactions of the pact files in a folder against a running provider and reports throughput,
+ * error rate and latency percentiles per interaction description.
+ * <p>
+ * Requests are scheduled open loop: request {@code n} is due {@code n / rate} seconds after the start, whether
+ * or not earlier requests have completed, and its latency is measured from when it was due. A provider that
+ * falls behind therefore shows up as queueing in the percentiles instead of as a lower request rate, which is
+ * what a closed loop of callers waiting on each other would report (coordinated omission). At most
+ * {@code load.concurrency} requests are in flight; requests due while all of them are busy wait in line.
+ * <p>
+ * Provider states cannot be set up on a running provider, so requests are replayed as recorded, except that
+ * for interactions that need an existing product (see {@link PactRequests#needsExistingProduct}) the example
+ * product id is replaced by a random id from the provider's own products. A response with a different status than the pact expects counts as an error, and
+ * the unexpected statuses are listed under the report.
+ * <p>
+ * Configured with {@code load.url} (default {@code http://localhost:8080}), {@code load.pacts} (default
+ * {@code pacts}), {@code load.rate} in requests per second, {@code load.concurrency}, {@code load.duration},
+ * {@code load.warmup}, {@code load.timeout} and {@code load.mix}, the relative weights of the interaction
+ * descriptions, e.g. {@code a request for products=9;a request for a product=1}. Without a mix only GET
+ * requests without conditional headers are replayed, every description with the same weight: creates would grow
+ * the catalog without bound, and a conditional request is only answered 304 for the exact representation in the
+ * pact. With a mix, unlisted descriptions are not replayed.
+ */
+public class PactLoadGenerator {
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    private final String baseUrl;
+    private final List<Target> targets;
+    private final double rate;
+    private final int concurrency;
+    private final Duration duration;
+    private final Duration warmup;
+    private final Duration timeout;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Stats> statsByDescription = new LinkedHashMap<>();
+
+    private List<String> productIds = List.of();
+
+    public PactLoadGenerator(String baseUrl, List<Interaction> interactions, Map<String, Integer> mix, double rate,
+                             int concurrency, Duration duration, Duration warmup, Duration timeout) {
+        if (rate <= 0 || concurrency < 1) {
+            throw new IllegalArgumentException("The rate and the concurrency must be positive");
+        }
+
+        this.baseUrl = baseUrl;
+        this.rate = rate;
+        this.concurrency = concurrency;
+        this.duration = duration;
+        this.warmup = warmup;
+        this.timeout = timeout;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .build();
+        this.targets = targets(interactions, mix);
+
+        if (targets.isEmpty()) {
+            throw new IllegalArgumentException("No interaction to replay, check the pact folder and the mix");
+        }
+        for (Target target : targets) {
+            statsByDescription.computeIfAbsent(target.description, description -> new Stats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        fromSystemProperties(System.getProperty("load.url", "http://localhost:8080")).run();
+    }
+
+    public static PactLoadGenerator fromSystemProperties(String baseUrl) {
+        return new PactLoadGenerator(baseUrl,
+                loadInteractions(new File(System.getProperty("load.pacts", "pacts"))),
+                parseMix(System.getProperty("load.mix", "")),
+                Double.parseDouble(System.getProperty("load.rate", "500")),
+                Integer.getInteger("load.concurrency", 32),
+                Duration.parse(System.getProperty("load.duration", "PT30S")),
+                Duration.parse(System.getProperty("load.warmup", "PT5S")),
+                Duration.parse(System.getProperty("load.timeout", "PT10S")));
+    }
+
+    public static List<Interaction> loadInteractions(File folder) {
+        File[] files = folder.listFiles((directory, name) -> name.endsWith(".json"));
+        if (files == null) {
+            throw new IllegalArgumentException("No pact folder at " + folder.getAbsolutePath());
+        }
+        Arrays.sort(files);
+
+        List<Interaction> interactions = new ArrayList<>();
+        for (File file : files) {
+            interactions.addAll(DefaultPactReader.INSTANCE.loadPact(file).getInteractions());
+        }
+
+        return interactions;
+    }
+
+    /**
+     * Runs the warmup and then the measured phase, and prints the report of the measured phase.
+     */
+    public void run() throws Exception {
+        productIds = fetchProductIds();
+
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long started = System.nanoTime();
+        long measureFrom = started + warmup.toNanos();
+        long measureUntil = measureFrom + duration.toNanos();
+
+        for (long n = 0; ; n++) {
+            long due = started + n * intervalNanos;
+            if (due - measureUntil >= 0) {
+                break;
+            }
+
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            Target target = pick();
+            boolean measured = due - measureFrom >= 0;
+            executor.execute(() -> send(target, due, measured));
+        }
+
+        executor.shutdown();
+        if (!executor.awaitTermination(timeout.toMillis() * 2, TimeUnit.MILLISECONDS)) {
+            int dropped = executor.shutdownNow().size();
+            System.out.printf("%,d requests were still waiting for a free connection at the end and were dropped%n", dropped);
+        }
+
+        report();
+    }
+
+    private void send(Target target, long due, boolean measured) {
+        int status;
+        try {
+            HttpRequest request = target.rewritesProductId && !productIds.isEmpty()
+                    ? withTimeout(PactRequests.toHttpRequest(baseUrl, target.request, PactRequests.replacingProductIds(
+                    () -> productIds.get(ThreadLocalRandom.current().nextInt(productIds.size())))))
+                    : target.httpRequest;
+            status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            status = -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        if (measured) {
+            statsByDescription.get(target.description).record(Math.min(System.nanoTime() - due, HIGHEST_TRACKABLE_NANOS),
+                    status, target.expectedStatus);
+        }
+    }
+
+    private HttpRequest withTimeout(HttpRequest request) {
+        return HttpRequest.newBuilder(request, (name, value) -> true).timeout(timeout).build();
+    }
+
+    private Target pick() {
+        int roll = ThreadLocalRandom.current().nextInt(targets.get(targets.size() - 1).cumulativeWeight);
+        for (Target target : targets) {
+            if (roll < target.cumulativeWeight) {
+                return target;
+            }
+        }
+
+        return targets.get(targets.size() - 1);
+    }
+
+    private void report() {
+        double seconds = duration.toNanos() / 1e9;
+        System.out.printf("Replayed %d interactions against %s at %.0f req/s with %d connections for %s%n",
+                targets.size(), baseUrl, rate, concurrency, duration);
+        System.out.printf("%-50s %10s %10s %8s %10s %10s %10s %10s %10s%n",
+                "interaction", "requests", "req/s", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+
+        Histogram all = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+        long errors = 0;
+        for (Map.Entry<String, Stats> entry : statsByDescription.entrySet()) {
+            Stats stats = entry.getValue();
+            all.add(stats.latencies);
+            errors += stats.errors.sum();
+            printLine(entry.getKey(), stats.latencies, stats.errors.sum(), seconds);
+        }
+        printLine("all", all, errors, seconds);
+
+        for (Map.Entry<String, Stats> entry : statsByDescription.entrySet()) {
+            for (Map.Entry<String, LongAdder> unexpected : entry.getValue().unexpectedStatuses.entrySet()) {
+                System.out.printf("'%s': %s, %,d times%n", entry.getKey(), unexpected.getKey(), unexpected.getValue().sum());
+            }
+        }
+    }
+
+    private static void printLine(String name, Histogram latencies, long errors, double seconds) {
+        long requests = latencies.getTotalCount();
+        if (requests == 0) {
+            System.out.printf("%-50s %10d%n", name, 0);
+            return;
+        }
+
+        System.out.printf("%-50s %,10d %,10.0f %7.2f%% %10.3f %10.3f %10.3f %10.3f %10.3f%n", name, requests,
+                requests / seconds, 100.0 * errors / requests,
+                latencies.getValueAtPercentile(50) / 1e6, latencies.getValueAtPercentile(90) / 1e6,
+                latencies.getValueAtPercentile(99) / 1e6, latencies.getValueAtPercentile(99.9) / 1e6,
+                latencies.getMaxValue() / 1e6);
+    }
+
+    private List<String> fetchProductIds() throws IOException, InterruptedException {
+        if (targets.stream().noneMatch(target -> target.rewritesProductId)) {
+            return List.of();
+        }
+
+        HttpResponse<byte[]> response = httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/products"))
+                .header("Accept", "application/json")
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Listing the products of " + baseUrl + " failed with status " + response.statusCode());
+        }
+
+        List<String> ids = new ArrayList<>();
+        for (JsonNode product : objectMapper.readTree(response.body())) {
+            ids.add(UUID.fromString(product.path("id").asText()).toString());
+        }
+
+        return ids;
+    }
+
+    private List<Target> targets(List<Interaction> interactions, Map<String, Integer> mix) {
+        Map<String, List<Interaction>> byDescription = new LinkedHashMap<>();
+        for (Interaction interaction : interactions) {
+            if (interaction.isSynchronousRequestResponse() && (!mix.isEmpty() || isUnconditionalGet(interaction))) {
+                byDescription.computeIfAbsent(interaction.getDescription(), description -> new ArrayList<>()).add(interaction);
+            }
+        }
+
+        for (String description : mix.keySet()) {
+            if (!byDescription.containsKey(description)) {
+                throw new IllegalArgumentException("No interaction is described as '" + description + "'");
+            }
+        }
+
+        // The weight of a description is shared by its interactions, so that weights can be given in whole numbers
+        // per description
+        int scale = byDescription.values().stream().mapToInt(List::size).reduce(1, PactLoadGenerator::lcm);
+        List<Target> targets = new ArrayList<>();
+        int cumulativeWeight = 0;
+        for (Map.Entry<String, List<Interaction>> entry : byDescription.entrySet()) {
+            int weight = mix.isEmpty() ? 1 : mix.getOrDefault(entry.getKey(), 0);
+            for (Interaction interaction : entry.getValue()) {
+                if (weight > 0) {
+                    cumulativeWeight += weight * scale / entry.getValue().size();
+                    targets.add(new Target(interaction, withTimeout(PactRequests.toHttpRequest(baseUrl,
+                            interaction.asSynchronousRequestResponse().getRequest())), cumulativeWeight));
+                }
+            }
+        }
+
+        return targets;
+    }
+
+    private static boolean isUnconditionalGet(Interaction interaction) {
+        IRequest request = interaction.asSynchronousRequestResponse().getRequest();
+        return request.getMethod().equalsIgnoreCase("GET") && request.getHeaders().keySet().stream()
+                .noneMatch(name -> name.toLowerCase(Locale.ROOT).startsWith("if-"));
+    }
+
+    private static Map<String, Integer> parseMix(String value) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String entry : value.split(";")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+
+            int separator = entry.lastIndexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected description=weight in the mix, got '" + entry + "'");
+            }
+            mix.put(entry.substring(0, separator).trim(), Integer.parseInt(entry.substring(separator + 1).trim()));
+        }
+
+        return mix;
+    }
+
+    private static int lcm(int a, int b) {
+        int gcd = a;
+        for (int remainder = b; remainder != 0; ) {
+            int next = gcd % remainder;
+            gcd = remainder;
+            remainder = next;
+        }
+
+        return a / gcd * b;
+    }
+
+    private static final class Target {
+        private final String description;
+        private final IRequest request;
+        private final HttpRequest httpRequest;
+        private final int expectedStatus;
+        private final boolean rewritesProductId;
+        private final int cumulativeWeight;
+
+        private Target(Interaction interaction, HttpRequest httpRequest, int cumulativeWeight) {
+            this.description = interaction.getDescription();
+            this.request = interaction.asSynchronousRequestResponse().getRequest();
+            this.httpRequest = httpRequest;
+            this.expectedStatus = interaction.asSynchronousRequestResponse().getResponse().getStatus();
+            this.rewritesProductId = PactRequests.needsExistingProduct(interaction);
+            this.cumulativeWeight = cumulativeWeight;
+        }
+    }
+
+    private static final class Stats {
+        private final Histogram latencies = new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3);
+        private final LongAdder errors = new LongAdder();
+        private final Map<String, LongAdder> unexpectedStatuses = new ConcurrentHashMap<>();
+
+        private void record(long latencyNanos, int status, int expectedStatus) {
+            latencies.recordValue(latencyNanos);
+            if (status != expectedStatus) {
+                errors.increment();
+                String unexpected = status < 0 ? "no response" : status + " instead of " + expectedStatus;
+                unexpectedStatuses.computeIfAbsent(unexpected, key -> new LongAdder()).increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package provider.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import provider.contracts.ProviderProductResponse;
+import provider.store.ProductLog;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Measures append throughput and crash recovery time of the product log, first from the log alone and then
+ * from a snapshot plus a log tail. The product count can be changed with {@code -Dbenchmark.products=N}.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+public class ProductLogRecoveryBenchmark {
+    private static final int PRODUCTS = Integer.getInteger("benchmark.products", 2_000_000);
+    private static final int BATCH_SIZE = 1_000;
+    private static final int TAIL_PRODUCTS = PRODUCTS / 10;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recovery() throws IOException {
+        List<ProviderProductResponse> products = new ArrayList<>(PRODUCTS + TAIL_PRODUCTS);
+        for (int i = 0; i < PRODUCTS + TAIL_PRODUCTS; i++) {
+            products.add(new ProviderProductResponse(UUID.randomUUID(), "product" + i, "description" + i, i, "store " + i % 100, i % 100));
+        }
+
+        try (ProductLog log = open()) {
+            log.recover();
+            long started = System.nanoTime();
+            append(log, products, 0, PRODUCTS);
+            report("append", PRODUCTS, System.nanoTime() - started);
+        }
+
+        recover(PRODUCTS, "recover from log");
+
+        try (ProductLog log = open()) {
+            log.recover();
+            long started = System.nanoTime();
+            log.snapshot(products.subList(0, PRODUCTS));
+            report("snapshot", PRODUCTS, System.nanoTime() - started);
+            append(log, products, PRODUCTS, PRODUCTS + TAIL_PRODUCTS);
+        }
+
+        recover(PRODUCTS + TAIL_PRODUCTS, "recover from snapshot + tail");
+    }
+
+    private ProductLog open() {
+        return new ProductLog(directory, 1024, 256L << 20, Duration.ZERO);
+    }
+
+    private static void append(ProductLog log, List<ProviderProductResponse> products, int from, int to) {
+        List<CompletableFuture<Void>> appends = new ArrayList<>();
+        for (int position = from; position < to; position += BATCH_SIZE) {
+            appends.add(log.append(position, products.subList(position, Math.min(position + BATCH_SIZE, to))));
+        }
+        appends.forEach(CompletableFuture::join);
+    }
+
+    private void recover(int expectedProducts, String name) throws IOException {
+        try (ProductLog log = open()) {
+            long started = System.nanoTime();
+            List<ProviderProductResponse> recovered = log.recover();
+            report(name, recovered.size(), System.nanoTime() - started);
+            assertEquals(expectedProducts, recovered.size());
+        }
+    }
+
+    private static void report(String name, int products, long elapsedNanos) {
+        System.out.printf("%-30s %,12d products  %10.1f ms  %,14.0f products/s%n", name, products,
+                elapsedNanos / 1e6, products / (elapsedNanos / 1e9));
+    }
+}
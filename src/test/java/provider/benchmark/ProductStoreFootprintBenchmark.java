@@ -0,0 +1,78 @@
+package provider.benchmark;
+
+import org.junit.jupiter.api.Test;
+import provider.contracts.ProviderProductResponse;
+import provider.store.ColumnarProductStore;
+import provider.store.ConcurrentProductStore;
+import provider.store.ProductStore;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Reports the heap and off-heap memory taken by each product store layout for the same catalog, plus the time
+ * of a full collection with the catalog live. The product count can be changed with
+ * {@code -Dbenchmark.products=N}. Run with {@code mvn test -Pbenchmark}.
+ */
+public class ProductStoreFootprintBenchmark {
+    private static final int PRODUCTS = Integer.getInteger("benchmark.products", 1_000_000);
+    private static final int BATCH_SIZE = 1_000;
+    private static final int STORES = 100;
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+    @Test
+    void footprint() {
+        measure("objects", ConcurrentProductStore::new);
+        measure("columnar", ColumnarProductStore::new);
+    }
+
+    private void measure(String name, Supplier<ProductStore> storeFactory) {
+        long heapBefore = usedHeap();
+        long directBefore = usedDirect();
+
+        ProductStore store = storeFactory.get();
+        List<ProviderProductResponse> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < PRODUCTS; i++) {
+            batch.add(new ProviderProductResponse(UUID.randomUUID(), "product " + i, "description of product " + i,
+                    i % 1000 + 0.99, "store " + i % STORES, i % STORES));
+            if (batch.size() == BATCH_SIZE) {
+                store.addAll(batch);
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+        store.addAll(batch);
+        batch = null;
+
+        long heap = usedHeap() - heapBefore;
+        long direct = usedDirect() - directBefore;
+        long started = System.nanoTime();
+        System.gc();
+        long gcMillis = (System.nanoTime() - started) / 1_000_000;
+
+        System.out.printf("%-10s %,12d products  heap %,8.1f MB (%6.1f B/product)  off-heap %,8.1f MB (%6.1f B/product)  full GC %,6d ms%n",
+                name, store.size(), heap / 1e6, (double) heap / PRODUCTS, direct / 1e6, (double) direct / PRODUCTS, gcMillis);
+        Reference.reachabilityFence(store);
+    }
+
+    private long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static long usedDirect() {
+        return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> pool.getName().equals("direct"))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                .sum();
+    }
+}
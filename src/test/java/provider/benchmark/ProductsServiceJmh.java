@@ -0,0 +1,92 @@
+package provider.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import provider.config.ProviderProperties;
+import provider.contracts.CreateProduct;
+import provider.contracts.ProviderProductResponse;
+import provider.services.ProductsServiceImpl;
+import provider.store.ColumnarProductStore;
+import provider.store.ConcurrentProductStore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Product reads and creations on {@link ProductsServiceImpl} for several catalog sizes and both store layouts.
+ * {@code createProduct} appends to a catalog that keeps growing from {@code catalogSize} during the run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductsServiceJmh {
+    private static final int BATCH_SIZE = 1_000;
+
+    @Param({"1000", "100000", "1000000"})
+    private int catalogSize;
+
+    @Param({"OBJECTS", "COLUMNAR"})
+    private ProviderProperties.Store.Layout layout;
+
+    private ProductsServiceImpl productsService;
+    private UUID[] ids;
+    private CreateProduct createProduct;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        productsService = new ProductsServiceImpl(
+                layout == ProviderProperties.Store.Layout.COLUMNAR ? new ColumnarProductStore() : new ConcurrentProductStore(),
+                Optional.empty());
+
+        List<CreateProduct> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = productsService.getProducts().size(); i < catalogSize; i++) {
+            batch.add(new CreateProduct("product " + i, "description of product " + i, i % 1000));
+            if (batch.size() == BATCH_SIZE) {
+                productsService.createProducts(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            productsService.createProducts(batch);
+        }
+
+        List<ProviderProductResponse> products = productsService.getProducts();
+        ids = new UUID[products.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = products.get(i).getId();
+        }
+        createProduct = new CreateProduct("new product", "description of the new product", 10);
+    }
+
+    @Benchmark
+    public Optional<ProviderProductResponse> getProduct() {
+        return productsService.getProduct(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+    }
+
+    @Benchmark
+    public ProviderProductResponse getProductByIndex() {
+        return productsService.getProductByIndex(ThreadLocalRandom.current().nextInt(ids.length));
+    }
+
+    @Benchmark
+    public ProviderProductResponse createProduct() {
+        return productsService.createProduct(createProduct);
+    }
+}
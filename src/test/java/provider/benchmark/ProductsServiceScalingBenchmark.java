@@ -0,0 +1,14 @@
+package provider.benchmark;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs the {@link ScalingHarness} from the benchmark profile; see the harness for the available system
+ * properties. Run with {@code mvn test -Pbenchmark -Dtest=ProductsServiceScalingBenchmark}.
+ */
+public class ProductsServiceScalingBenchmark {
+    @Test
+    void scaling() throws Exception {
+        ScalingHarness.main(new String[0]);
+    }
+}
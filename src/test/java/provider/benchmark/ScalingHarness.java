@@ -0,0 +1,255 @@
+package provider.benchmark;
+
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import provider.MainProductsProvider;
+import provider.contracts.CreateProduct;
+import provider.contracts.ProviderProductResponse;
+import provider.services.ProductsService;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a mixed getProduct / getProducts / createProduct workload against a {@link ProductsService} for a series
+ * of thread counts and reports throughput and latency percentiles per operation.
+ * <p>
+ * Correctness is checked while the workload runs (a created product must be readable right away, snapshots
+ * must never shrink, a product read by index must match the snapshot) and again afterwards (no created product
+ * is lost, every position matches its id). Any violation is collected and reported as a failure.
+ * <p>
+ * {@link #main} starts the provider without a web server, so any store or persistence configuration can be
+ * passed as system properties, e.g. {@code -Dprovider.store.layout=columnar}. The harness itself is configured
+ * with {@code scaling.threads} (e.g. {@code 1,2,4,8}), {@code scaling.mix} (percentages of getProduct,
+ * getProducts and createProduct, e.g. {@code 95,4,1}), {@code scaling.duration} and {@code scaling.products}.
+ */
+public class ScalingHarness {
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final int SEED_BATCH_SIZE = 1_000;
+    private static final int MAX_VIOLATIONS = 100;
+    private static final String[] OPERATIONS = {"getProduct", "getProducts", "createProduct"};
+
+    private final ProductsService productsService;
+    private final int getProductPercent;
+    private final int getProductsPercent;
+    private final Duration duration;
+    private final Duration warmup;
+    private final ConcurrentLinkedQueue<String> violations = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<ProviderProductResponse> created = new ConcurrentLinkedQueue<>();
+
+    public ScalingHarness(ProductsService productsService, int[] mix, Duration duration, Duration warmup) {
+        if (mix.length != 3 || Arrays.stream(mix).sum() != 100 || Arrays.stream(mix).anyMatch(percent -> percent < 0)) {
+            throw new IllegalArgumentException("The mix must be three non-negative percentages adding up to 100");
+        }
+
+        this.productsService = productsService;
+        this.getProductPercent = mix[0];
+        this.getProductsPercent = mix[1];
+        this.duration = duration;
+        this.warmup = warmup;
+    }
+
+    public static void main(String[] args) throws Exception {
+        try (ConfigurableApplicationContext provider = new SpringApplicationBuilder(MainProductsProvider.class)
+                .web(WebApplicationType.NONE)
+                .properties("logging.level.root=WARN")
+                .run(args)) {
+            ProductsService productsService = provider.getBean(ProductsService.class);
+            ScalingHarness harness = new ScalingHarness(productsService,
+                    parseInts(System.getProperty("scaling.mix", "95,4,1")),
+                    Duration.parse(System.getProperty("scaling.duration", "PT5S")),
+                    Duration.parse(System.getProperty("scaling.warmup", "PT2S")));
+
+            harness.seed(Integer.getInteger("scaling.products", 100_000));
+            List<String> violations = harness.run(parseInts(System.getProperty("scaling.threads", defaultThreadCounts())));
+            if (!violations.isEmpty()) {
+                throw new AssertionError(violations.size() + " invariant violations, first: " + violations.get(0));
+            }
+        }
+    }
+
+    public void seed(int products) {
+        List<CreateProduct> batch = new ArrayList<>(SEED_BATCH_SIZE);
+        for (int i = productsService.getProducts().size(); i < products; i++) {
+            batch.add(new CreateProduct("product " + i, "description of product " + i, i % 1000));
+            if (batch.size() == SEED_BATCH_SIZE) {
+                productsService.createProducts(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            productsService.createProducts(batch);
+        }
+    }
+
+    /**
+     * Runs the workload once per thread count, prints a report line per operation and returns the invariant
+     * violations found, if any.
+     */
+    public List<String> run(int[] threadCounts) throws Exception {
+        System.out.printf("%-8s %-14s %14s %10s %10s %10s %10s %10s%n",
+                "threads", "operation", "ops/s", "p50 us", "p90 us", "p99 us", "p99.9 us", "max us");
+
+        for (int threads : threadCounts) {
+            runPhase(threads, warmup);
+            Histogram[] histograms = runPhase(threads, duration);
+
+            long total = 0;
+            for (Histogram histogram : histograms) {
+                total += histogram.getTotalCount();
+            }
+            System.out.printf("%-8d %-14s %,14.0f%n", threads, "all", total / (duration.toNanos() / 1e9));
+            for (int operation = 0; operation < OPERATIONS.length; operation++) {
+                Histogram histogram = histograms[operation];
+                if (histogram.getTotalCount() == 0) {
+                    continue;
+                }
+
+                System.out.printf("%-8d %-14s %,14.0f %10.1f %10.1f %10.1f %10.1f %10.1f%n", threads, OPERATIONS[operation],
+                        histogram.getTotalCount() / (duration.toNanos() / 1e9),
+                        histogram.getValueAtPercentile(50) / 1e3, histogram.getValueAtPercentile(90) / 1e3,
+                        histogram.getValueAtPercentile(99) / 1e3, histogram.getValueAtPercentile(99.9) / 1e3,
+                        histogram.getMaxValue() / 1e3);
+            }
+        }
+
+        verifyFinalState();
+        return new ArrayList<>(violations);
+    }
+
+    private Histogram[] runPhase(int threads, Duration phaseDuration) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Histogram[]>> workers = new ArrayList<>();
+        for (int thread = 0; thread < threads; thread++) {
+            workers.add(executor.submit(() -> {
+                start.await();
+                return work(System.nanoTime() + phaseDuration.toNanos());
+            }));
+        }
+
+        start.countDown();
+        Histogram[] histograms = newHistograms();
+        for (Future<Histogram[]> worker : workers) {
+            Histogram[] workerHistograms = worker.get(phaseDuration.toMillis() + 60_000, TimeUnit.MILLISECONDS);
+            for (int operation = 0; operation < OPERATIONS.length; operation++) {
+                histograms[operation].add(workerHistograms[operation]);
+            }
+        }
+        executor.shutdown();
+
+        return histograms;
+    }
+
+    private Histogram[] work(long endNanos) {
+        Histogram[] histograms = newHistograms();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int lastSnapshotSize = 0;
+
+        while (System.nanoTime() - endNanos < 0) {
+            int roll = random.nextInt(100);
+            long started = System.nanoTime();
+
+            if (roll < getProductPercent) {
+                List<ProviderProductResponse> snapshot = productsService.getProducts();
+                int index = random.nextInt(snapshot.size());
+                UUID id = snapshot.get(index).getId();
+                started = System.nanoTime();
+                Optional<ProviderProductResponse> product = productsService.getProduct(id);
+                histograms[0].recordValue(Math.min(System.nanoTime() - started, HIGHEST_TRACKABLE_NANOS));
+
+                if (product.isEmpty()) {
+                    violation("Product " + id + " at index " + index + " is in a snapshot but not found by id");
+                }
+            } else if (roll < getProductPercent + getProductsPercent) {
+                List<ProviderProductResponse> snapshot = productsService.getProducts();
+                int index = random.nextInt(snapshot.size());
+                ProviderProductResponse fromSnapshot = snapshot.get(index);
+                histograms[1].recordValue(Math.min(System.nanoTime() - started, HIGHEST_TRACKABLE_NANOS));
+
+                if (snapshot.size() < lastSnapshotSize) {
+                    violation("Snapshot shrank from " + lastSnapshotSize + " to " + snapshot.size());
+                }
+                lastSnapshotSize = snapshot.size();
+                if (!productsService.getProductByIndex(index).getId().equals(fromSnapshot.getId())) {
+                    violation("Index " + index + " holds a different product than the snapshot");
+                }
+            } else {
+                ProviderProductResponse product = productsService.createProduct(new CreateProduct("created", "created by the scaling harness", 1));
+                histograms[2].recordValue(Math.min(System.nanoTime() - started, HIGHEST_TRACKABLE_NANOS));
+
+                created.add(product);
+                if (productsService.getProduct(product.getId()).isEmpty()) {
+                    violation("Created product " + product.getId() + " is not readable by its creator");
+                }
+            }
+        }
+
+        return histograms;
+    }
+
+    private void verifyFinalState() {
+        List<ProviderProductResponse> snapshot = productsService.getProducts();
+        for (int index = 0; index < snapshot.size(); index++) {
+            ProviderProductResponse product = snapshot.get(index);
+            if (!productsService.getProductByIndex(index).getId().equals(product.getId())) {
+                violation("Index " + index + " does not match the snapshot");
+            }
+            if (!productsService.getProduct(product.getId()).map(found -> found.getId().equals(product.getId())).orElse(false)) {
+                violation("Product " + product.getId() + " at index " + index + " is not found by id");
+            }
+        }
+
+        for (ProviderProductResponse product : created) {
+            if (productsService.getProduct(product.getId()).isEmpty()) {
+                violation("Created product " + product.getId() + " was lost");
+            }
+        }
+
+        long distinct = snapshot.stream().map(ProviderProductResponse::getId).distinct().count();
+        if (distinct != snapshot.size()) {
+            violation((snapshot.size() - distinct) + " products are stored more than once");
+        }
+    }
+
+    private void violation(String message) {
+        if (violations.size() < MAX_VIOLATIONS) {
+            violations.add(message);
+        }
+    }
+
+    private static Histogram[] newHistograms() {
+        Histogram[] histograms = new Histogram[OPERATIONS.length];
+        for (int operation = 0; operation < OPERATIONS.length; operation++) {
+            histograms[operation] = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+        }
+
+        return histograms;
+    }
+
+    private static int[] parseInts(String value) {
+        return Arrays.stream(value.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+    }
+
+    private static String defaultThreadCounts() {
+        List<String> counts = new ArrayList<>();
+        for (int threads = 1; threads <= Runtime.getRuntime().availableProcessors() * 2; threads *= 2) {
+            counts.add(String.valueOf(threads));
+        }
+
+        return String.join(",", counts);
+    }
+}
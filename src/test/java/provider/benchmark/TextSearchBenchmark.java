@@ -0,0 +1,94 @@
+package provider.benchmark;
+
+import org.junit.jupiter.api.Test;
+import provider.contracts.ProviderProductResponse;
+import provider.store.TextIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Builds the text index over a synthetic catalog and replays type-ahead sequences against it, reporting build
+ * time and query latency percentiles. The catalog size can be changed with {@code -Dbenchmark.products=N}.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+public class TextSearchBenchmark {
+    private static final int PRODUCTS = Integer.getInteger("benchmark.products", 1_000_000);
+    private static final int BATCH_SIZE = 1_000;
+    private static final int LIMIT = 10;
+    private static final long BUDGET_NANOS = 50_000_000;
+    private static final int SEQUENCES = 200;
+
+    private static final String[] ADJECTIVES = {"wireless", "ergonomic", "compact", "premium", "portable", "smart",
+            "vintage", "rugged", "silent", "bright", "modular", "foldable", "waterproof", "classic", "digital"};
+    private static final String[] NOUNS = {"mouse", "keyboard", "monitor", "speaker", "headphones", "charger", "lamp",
+            "backpack", "bottle", "camera", "router", "watch", "tablet", "printer", "microphone", "desk", "chair"};
+    private static final String[] WORDS = {"with", "for", "and", "battery", "cable", "usb", "bluetooth", "steel",
+            "aluminium", "leather", "travel", "office", "gaming", "studio", "outdoor", "kids", "pro", "mini", "max"};
+
+    private final Random random = new Random(42);
+
+    @Test
+    void typeAhead() {
+        TextIndex index = new TextIndex();
+        long started = System.nanoTime();
+        List<ProviderProductResponse> batch = new ArrayList<>(BATCH_SIZE);
+        for (int position = 0; position < PRODUCTS; position++) {
+            batch.add(product(position));
+            if (batch.size() == BATCH_SIZE) {
+                index.addAll(position - BATCH_SIZE + 1, batch);
+                batch.clear();
+            }
+        }
+        index.addAll(PRODUCTS - batch.size(), batch);
+        System.out.printf("%-22s %,12d products  %10.1f ms%n", "build", PRODUCTS, (System.nanoTime() - started) / 1e6);
+
+        List<String> queries = new ArrayList<>();
+        for (int i = 0; i < SEQUENCES; i++) {
+            String text = pick(ADJECTIVES) + " " + pick(NOUNS) + " " + pick(WORDS);
+            for (int length = 1; length <= text.length(); length++) {
+                queries.add(text.substring(0, length));
+            }
+        }
+
+        run(index, queries.subList(0, queries.size() / 4), "warmup");
+        run(index, queries, "type-ahead");
+    }
+
+    private void run(TextIndex index, List<String> queries, String name) {
+        long[] latencies = new long[queries.size()];
+        int partial = 0;
+        for (int i = 0; i < queries.size(); i++) {
+            long started = System.nanoTime();
+            TextIndex.Result result = index.search(queries.get(i), LIMIT, started + BUDGET_NANOS);
+            latencies[i] = System.nanoTime() - started;
+            if (!result.isComplete()) {
+                partial++;
+            }
+        }
+        Arrays.sort(latencies);
+
+        System.out.printf("%-22s %,12d queries  p50 %8.3f ms  p99 %8.3f ms  p99.9 %8.3f ms  max %8.3f ms  partial %,d%n",
+                name, latencies.length, percentile(latencies, 50), percentile(latencies, 99),
+                percentile(latencies, 99.9), latencies[latencies.length - 1] / 1e6, partial);
+    }
+
+    private ProviderProductResponse product(int position) {
+        String name = pick(ADJECTIVES) + " " + pick(NOUNS) + " " + position;
+        String description = pick(WORDS) + " " + pick(WORDS) + " " + pick(ADJECTIVES) + " " + pick(NOUNS) + " " + pick(WORDS);
+
+        return new ProviderProductResponse(UUID.randomUUID(), name, description, position % 1000, null, 0);
+    }
+
+    private String pick(String[] words) {
+        return words[random.nextInt(words.length)];
+    }
+
+    private static double percentile(long[] sortedLatencies, double percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.max(0, index)] / 1e6;
+    }
+}
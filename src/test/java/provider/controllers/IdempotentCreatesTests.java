@@ -0,0 +1,65 @@
+package provider.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import provider.config.ProviderProperties;
+import provider.contracts.CreateProduct;
+import provider.contracts.ProviderProductResponse;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class IdempotentCreatesTests {
+    private final IdempotentCreates idempotentCreates = new IdempotentCreates(new ProviderProperties());
+    private final AtomicInteger creates = new AtomicInteger();
+
+    @Test
+    void testCreatesOncePerKey() {
+        CreateProduct createProduct = new CreateProduct("Product 1", "Product 1 description", 1);
+
+        ProviderProductResponse first = idempotentCreates.create("key-1", createProduct, () -> create(createProduct));
+        ProviderProductResponse retried = idempotentCreates.create("key-1", createProduct, () -> create(createProduct));
+        ProviderProductResponse other = idempotentCreates.create("key-2", createProduct, () -> create(createProduct));
+
+        assertSame(first, retried);
+        assertEquals(2, creates.get());
+        assertEquals(createProduct.getName(), other.getName());
+    }
+
+    @Test
+    void testRejectsAKeyReusedForAnotherProduct() {
+        CreateProduct createProduct = new CreateProduct("Product 1", "Product 1 description", 1);
+        CreateProduct otherProduct = new CreateProduct("Product 2", "Product 2 description", 2);
+        idempotentCreates.create("key-1", createProduct, () -> create(createProduct));
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> idempotentCreates.create("key-1", otherProduct, () -> create(otherProduct)));
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, e.getStatus());
+        assertEquals(1, creates.get());
+    }
+
+    @Test
+    void testForgetsTheKeyOfAFailedCreate() {
+        CreateProduct createProduct = new CreateProduct("Product 1", "Product 1 description", 1);
+
+        assertThrows(IllegalStateException.class, () -> idempotentCreates.create("key-1", createProduct, () -> {
+            throw new IllegalStateException("store unavailable");
+        }));
+        ProviderProductResponse created = idempotentCreates.create("key-1", createProduct, () -> create(createProduct));
+
+        assertEquals(createProduct.getName(), created.getName());
+        assertEquals(1, creates.get());
+    }
+
+    private ProviderProductResponse create(CreateProduct createProduct) {
+        creates.incrementAndGet();
+        return new ProviderProductResponse(UUID.randomUUID(), createProduct.getName(), createProduct.getDescription(),
+                createProduct.getPrice(), "store 1", 1);
+    }
+}
@@ -0,0 +1,31 @@
+package provider.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import provider.MainProductsProvider;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@AutoConfigureMetrics
+@SpringBootTest(classes = MainProductsProvider.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class MetricsTests {
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void testExportsEndpointAndCatalogMetrics() {
+        assertEquals(200, restTemplate.getForEntity("/api/products", String.class).getStatusCodeValue());
+        assertEquals(404, restTemplate.getForEntity("/api/products/01234567-0123-0123-0123-0123456789ab", String.class).getStatusCodeValue());
+
+        String metrics = restTemplate.getForObject("/actuator/prometheus", String.class);
+
+        assertTrue(metrics.contains("http_server_requests_seconds_count{exception=\"None\",method=\"GET\",outcome=\"SUCCESS\",status=\"200\",uri=\"/api/products\",}"), metrics);
+        assertTrue(metrics.contains("http_server_requests_seconds_count{exception=\"None\",method=\"GET\",outcome=\"CLIENT_ERROR\",status=\"404\",uri=\"/api/products/{id}\",}"), metrics);
+        assertTrue(metrics.contains("http_server_requests_seconds_bucket{"), metrics);
+        assertTrue(metrics.contains("products_catalog_size 3.0"), metrics);
+    }
+}
@@ -0,0 +1,130 @@
+package provider.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.RequestEntity;
+import provider.MainProductsProvider;
+import provider.contracts.CreateProduct;
+import provider.services.ProductsService;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+@SpringBootTest(classes = MainProductsProvider.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "provider.events.buffer-size=4")
+public class ProductEventsTests {
+    @LocalServerPort
+    private int serverPort;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ProductsService productsService;
+
+    @Autowired
+    private ProductEvents productEvents;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void testResumesAfterTheLastEventId() throws Exception {
+        int size = productsService.getProducts().size();
+        String catalogId = productsService.getCatalogId().toString();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + serverPort + "/api/products/events"))
+                .header("Accept", "text/event-stream")
+                .header("Last-Event-ID", catalogId + ":" + (size - 1))
+                .build();
+
+        HttpResponse<Stream<String>> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofLines());
+        List<String> lines = new ArrayList<>();
+        try (Stream<String> body = response.body()) {
+            Iterator<String> iterator = body.iterator();
+            for (String line = iterator.next(); !line.equals("event:heartbeat"); line = iterator.next()) {
+                lines.add(line);
+            }
+        }
+
+        String lastProduct = objectMapper.writeValueAsString(List.of(productsService.getProductByIndex(size - 1)));
+        assertEquals(200, response.statusCode());
+        assertEquals(List.of("id:" + catalogId + ":" + size, "event:products", "data:" + lastProduct, ""), lines);
+
+        assertEquals(400, restTemplate.exchange(RequestEntity.get("/api/products/events")
+                .header("Last-Event-ID", catalogId + ":" + (size + 1))
+                .build(), String.class).getStatusCodeValue());
+        assertEquals(400, restTemplate.exchange(RequestEntity.get("/api/products/events")
+                .header("Last-Event-ID", UUID.randomUUID() + ":" + (size - 1))
+                .build(), String.class).getStatusCodeValue());
+    }
+
+    @Test
+    void testDisconnectsSubscribersThatFallBehind() throws Exception {
+        try (Socket ignored = subscribe()) {
+            await(() -> productEvents.getSubscriberCount() > 0);
+
+            String description = "x".repeat(1024);
+            for (int batch = 0; batch < 100 && productEvents.getSubscriberCount() > 0; batch++) {
+                List<CreateProduct> createProducts = new ArrayList<>();
+                for (int i = 0; i < 100; i++) {
+                    createProducts.add(new CreateProduct("flood " + batch + " " + i, description, i));
+                }
+                productsService.createProducts(createProducts);
+                productEvents.publish();
+            }
+
+            await(() -> productEvents.getSubscriberCount() == 0);
+        }
+    }
+
+    /**
+     * Opens an event stream that is never read, with a small receive buffer so that the provider soon blocks
+     * writing to it.
+     */
+    private Socket subscribe() throws Exception {
+        Socket socket = new Socket();
+        socket.setReceiveBufferSize(1024);
+        socket.connect(new InetSocketAddress("localhost", serverPort));
+        OutputStream output = socket.getOutputStream();
+        output.write(("GET /api/products/events HTTP/1.1\r\nHost: localhost\r\nAccept: text/event-stream\r\n\r\n")
+                .getBytes(StandardCharsets.US_ASCII));
+        output.flush();
+
+        return socket;
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() - deadline > 0) {
+                fail("Condition not met in time");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("Interrupted");
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package provider.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import provider.config.ProviderProperties;
+import provider.contracts.ProviderProductResponse;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class ProductJsonCacheTests {
+    private final ObjectMapper objectMapper = new Jackson2ObjectMapperBuilder().build();
+    private final ProductJsonCache productJsonCache = new ProductJsonCache(objectMapper, new ProviderProperties());
+
+    @Test
+    void testMatchesJacksonOutput() throws Exception {
+        ProviderProductResponse first = new ProviderProductResponse(UUID.randomUUID(), "Product 1", "\"quoted\" \u00e9", 20, "store 1", 1);
+        ProviderProductResponse second = new ProviderProductResponse(UUID.randomUUID(), "Product 2", null, 30.5, "store 2", 2);
+
+        assertArrayEquals(objectMapper.writeValueAsBytes(first), productJsonCache.put(first));
+        assertArrayEquals(objectMapper.writeValueAsBytes(List.of(first, second)), productJsonCache.getArray(List.of(first, second)));
+        assertArrayEquals(objectMapper.writeValueAsBytes(List.of()), productJsonCache.getArray(List.of()));
+    }
+
+    @Test
+    void testReusesBytesUntilTheProductChanges() throws Exception {
+        UUID id = UUID.randomUUID();
+        ProviderProductResponse product = new ProviderProductResponse(id, "Product 1", "Product 1 description", 20, "store 1", 1);
+        ProviderProductResponse equalProduct = new ProviderProductResponse(id, "Product 1", "Product 1 description", 20, "store 1", 1);
+        ProviderProductResponse otherProduct = new ProviderProductResponse(id, "Product 2", "Product 2 description", 30, "store 1", 1);
+
+        byte[] json = productJsonCache.put(product);
+
+        assertSame(json, productJsonCache.get(product));
+        assertSame(json, productJsonCache.get(equalProduct));
+        assertArrayEquals(objectMapper.writeValueAsBytes(otherProduct), productJsonCache.get(otherProduct));
+    }
+
+    @Test
+    void testKeepsNoProductsWithTheColumnarLayout() throws Exception {
+        ProviderProperties properties = new ProviderProperties();
+        properties.getStore().setLayout(ProviderProperties.Store.Layout.COLUMNAR);
+        ProductJsonCache uncached = new ProductJsonCache(objectMapper, properties);
+        ProviderProductResponse product = new ProviderProductResponse(UUID.randomUUID(), "Product 1", "Product 1 description", 20, "store 1", 1);
+
+        byte[] json = uncached.put(product);
+
+        assertNotSame(json, uncached.get(product));
+        assertArrayEquals(objectMapper.writeValueAsBytes(product), uncached.get(product));
+    }
+
+    @Test
+    void testProjectsFields() {
+        UUID id = UUID.fromString("01234567-0123-0123-0123-0123456789ab");
+        ProviderProductResponse product = new ProviderProductResponse(id, "Product 1", "Product 1 description", 20, "store 1", 1);
+
+        assertEquals("{\"id\":\"" + id + "\",\"name\":\"Product 1\"}", new String(productJsonCache.get(product, Set.of("name", "id"))));
+        assertEquals("[{\"price\":20.0}]", new String(productJsonCache.getArray(List.of(product), Set.of("price"))));
+        assertArrayEquals(productJsonCache.get(product), productJsonCache.get(product, null));
+    }
+}
@@ -0,0 +1,130 @@
+package provider.controllers;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import provider.config.ProviderProperties;
+import provider.contracts.CreateProduct;
+import provider.services.ProductsServiceImpl;
+import provider.store.ConcurrentProductStore;
+import provider.store.ProductLog;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class ProductsControllerTests {
+    private final ProviderProperties properties = new ProviderProperties();
+    private final ProductJsonCache productJsonCache = spy(new ProductJsonCache(new Jackson2ObjectMapperBuilder().build(), properties));
+    private final ProductCborEncoder productCborEncoder = spy(new ProductCborEncoder());
+    private final List<ProductEvents> productEvents = new ArrayList<>();
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void stopProductEvents() {
+        productEvents.forEach(ProductEvents::destroy);
+    }
+
+    @Test
+    void testProductsEtagChangesWhenTheProviderRestartsWithAnotherCatalog() {
+        String etag = productsEtag(controller(new ProductsServiceImpl()));
+        String restartedEtag = productsEtag(controller(new ProductsServiceImpl()));
+
+        assertNotEquals(etag, restartedEtag);
+    }
+
+    @Test
+    void testProductsEtagNamesTheRecoveredCatalog() throws Exception {
+        String etag;
+        try (ProductLog productLog = new ProductLog(directory, 16, 1024, Duration.ZERO)) {
+            etag = productsEtag(controller(new ProductsServiceImpl(new ConcurrentProductStore(), Optional.of(productLog))));
+        }
+
+        try (ProductLog productLog = new ProductLog(directory, 16, 1024, Duration.ZERO)) {
+            ProductsServiceImpl recovered = new ProductsServiceImpl(new ConcurrentProductStore(), Optional.of(productLog));
+            assertEquals(etag, productsEtag(controller(recovered)));
+
+            recovered.createProduct(new CreateProduct("Product 4", "Product 4 description", 4));
+            assertNotEquals(etag, productsEtag(controller(recovered)));
+        }
+    }
+
+    @Test
+    void testAnswersUnchangedJsonWithoutEncodingIt() {
+        ProductsServiceImpl productsService = new ProductsServiceImpl();
+        ProductsController controller = controller(productsService);
+        UUID id = productsService.getProductByIndex(0).getId();
+        String productsEtag = productsEtag(controller);
+        String productEtag = controller.getProduct(id, null, request(null)).getHeaders().getETag();
+
+        ServletWebRequest productsRequest = request(productsEtag);
+        assertNull(controller.getProducts(null, null, null, productsRequest));
+        assertEquals(304, productsRequest.getResponse().getStatus());
+
+        ServletWebRequest productRequest = request(productEtag);
+        assertNull(controller.getProduct(id, null, productRequest));
+        assertEquals(304, productRequest.getResponse().getStatus());
+
+        verify(productJsonCache).getArray(any(), any());
+        verify(productJsonCache).get(any(), any());
+    }
+
+    @Test
+    void testAnswersUnchangedCborWithoutEncodingIt() {
+        ProductsServiceImpl productsService = new ProductsServiceImpl();
+        ProductsController controller = controller(productsService);
+        UUID id = productsService.getProductByIndex(0).getId();
+        String productsEtag = controller.getProductsCbor(null, null, null, request(null)).getHeaders().getETag();
+        String productEtag = controller.getProductCbor(id, null, request(null)).getHeaders().getETag();
+
+        ServletWebRequest productsRequest = request(productsEtag);
+        assertNull(controller.getProductsCbor(null, null, null, productsRequest));
+        assertEquals(304, productsRequest.getResponse().getStatus());
+
+        ServletWebRequest productRequest = request(productEtag);
+        assertNull(controller.getProductCbor(id, null, productRequest));
+        assertEquals(304, productRequest.getResponse().getStatus());
+
+        verify(productCborEncoder, times(2)).encode(any(), any());
+        assertEquals(200, controller.getProductsCbor(null, null, null, request(productsEtag(controller))).getStatusCodeValue());
+    }
+
+    private ProductsController controller(ProductsServiceImpl productsService) {
+        ProductEvents events = new ProductEvents(productsService, productJsonCache, properties);
+        productEvents.add(events);
+
+        return new ProductsController(productsService, properties, productJsonCache, productCborEncoder, events,
+                new IdempotentCreates(properties));
+    }
+
+    private static String productsEtag(ProductsController controller) {
+        return controller.getProducts(null, null, null, request(null)).getHeaders().getETag();
+    }
+
+    private static ServletWebRequest request(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+}
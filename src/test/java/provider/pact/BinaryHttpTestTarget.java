@@ -0,0 +1,130 @@
+package provider.pact;
+
+import au.com.dius.pact.core.model.ContentType;
+import au.com.dius.pact.core.model.IResponse;
+import au.com.dius.pact.core.model.Interaction;
+import au.com.dius.pact.provider.ProviderResponse;
+import au.com.dius.pact.provider.junit5.HttpTestTarget;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequest;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link HttpTestTarget} that keeps CBOR response bodies intact. Pact's own client decodes every body as text in
+ * the charset of its content type, which is UTF-8 for binary types and corrupts them; this target decodes CBOR
+ * bodies as ISO-8859-1 instead, which maps every byte to one character and back.
+ * <p>
+ * Pact only matches the content type of binary bodies, so {@link #verifyCborBody} checks the shape of the CBOR
+ * body the provider returned against the decoded body of the interaction.
+ */
+public class BinaryHttpTestTarget extends HttpTestTarget {
+    private static final String CBOR = "application/cbor";
+    private static final ObjectMapper CBOR_MAPPER = new ObjectMapper(new CBORFactory());
+
+    private byte[] lastCborBody;
+
+    public BinaryHttpTestTarget(String host, int port) {
+        super(host, port);
+    }
+
+    @Override
+    public ProviderResponse executeInteraction(Object client, Object request) {
+        HttpUriRequest httpRequest = (HttpUriRequest) request;
+        Header accept = httpRequest.getFirstHeader("Accept");
+        if (accept == null || !accept.getValue().startsWith(CBOR)) {
+            return super.executeInteraction(client, request);
+        }
+
+        lastCborBody = null;
+        try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
+            return httpClient.execute(httpRequest, this::toProviderResponse);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Checks that the CBOR body last returned has the shape of the interaction's CBOR body, if it expects one: every
+     * expected field is present with a value of the same type, and every item of an array has the shape of the first
+     * expected item. Values themselves are not compared, like pact's type matching.
+     */
+    public void verifyCborBody(Interaction interaction) {
+        IResponse expected = interaction.asSynchronousRequestResponse().getResponse();
+        String contentType = expected.getBody().isPresent() ? expected.getBody().getContentType().asString() : null;
+        if (contentType == null || !contentType.startsWith(CBOR)) {
+            return;
+        }
+
+        if (lastCborBody == null) {
+            throw new AssertionError(interaction.getDescription() + ": the provider returned no CBOR body");
+        }
+
+        try {
+            assertSameShape(interaction.getDescription() + ": $", CBOR_MAPPER.readTree(expected.getBody().unwrap()),
+                    CBOR_MAPPER.readTree(lastCborBody));
+        } catch (IOException e) {
+            throw new AssertionError(interaction.getDescription() + ": the provider returned a body that is not CBOR", e);
+        }
+    }
+
+    private static void assertSameShape(String path, JsonNode expected, JsonNode actual) {
+        if (expected.getNodeType() != actual.getNodeType()) {
+            throw new AssertionError(path + " should be " + expected.getNodeType() + " but was " + actual.getNodeType());
+        }
+
+        if (expected.isObject()) {
+            for (Iterator<Map.Entry<String, JsonNode>> fields = expected.fields(); fields.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                JsonNode value = actual.get(field.getKey());
+                if (value == null) {
+                    throw new AssertionError(path + "." + field.getKey() + " is missing");
+                }
+
+                assertSameShape(path + "." + field.getKey(), field.getValue(), value);
+            }
+        } else if (expected.isArray() && expected.size() > 0) {
+            if (actual.isEmpty()) {
+                throw new AssertionError(path + " should have at least one item");
+            }
+
+            for (int i = 0; i < actual.size(); i++) {
+                assertSameShape(path + "[" + i + "]", expected.get(0), actual.get(i));
+            }
+        }
+    }
+
+    private ProviderResponse toProviderResponse(ClassicHttpResponse response) throws IOException {
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (Header header : response.getHeaders()) {
+            headers.computeIfAbsent(header.getName(), name -> new ArrayList<>()).add(header.getValue());
+        }
+
+        if (response.getEntity() == null) {
+            return new ProviderResponse(response.getCode(), headers, ContentType.Companion.getTEXT_PLAIN(), null);
+        }
+
+        ContentType contentType = ContentType.Companion.fromString(response.getEntity().getContentType() + ";charset=ISO-8859-1");
+        byte[] bytes = EntityUtils.toByteArray(response.getEntity());
+        if (response.getEntity().getContentType() != null && response.getEntity().getContentType().startsWith(CBOR)) {
+            lastCborBody = bytes;
+        }
+
+        String body = new String(bytes, StandardCharsets.ISO_8859_1);
+        return new ProviderResponse(response.getCode(), headers, contentType, body);
+    }
+}
@@ -0,0 +1,224 @@
+package provider.pact;
+
+import au.com.dius.pact.core.model.Interaction;
+import au.com.dius.pact.provider.junit5.PactVerificationContext;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import provider.MainProductsProvider;
+import provider.contracts.CreateProduct;
+import provider.contracts.ProviderProductResponse;
+import provider.services.ProductsService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Checks the latency budgets the consumers stored next to their pacts, in {@code budgets/<consumer>-<provider>.json}.
+ * <p>
+ * Once an interaction with a budget has been verified, its request is replayed with a plain HTTP client: first
+ * {@code samples} times to warm up, then {@code samples} times measured. The interaction fails when the budgeted
+ * percentile of the measured requests is over budget. Every budget must match at least one interaction, so a
+ * renamed interaction cannot silently drop its budget.
+ * <p>
+ * The provider under verification only answers from mocked provider states, so requests are replayed against a
+ * provider of their own, started on the first replay with a catalog of {@code catalogSize} products. The budgets
+ * therefore cover the service and the store as well as the web layer. Interactions that need an existing product
+ * get the id of a seeded one (see {@link PactRequests#needsExistingProduct}).
+ * <p>
+ * Wall-clock percentiles are only meaningful on a quiet machine, so the budgets are not checked by a plain
+ * {@code mvn test}: run {@code mvn test -Platency-budgets -Dtest=ProductsControllerPactTests}, or set
+ * {@code -Dpact.latency.samples=N}. Without samples, budgets must still match an interaction.
+ */
+public class LatencyBudgetVerifier implements AutoCloseable {
+    private static final int SEED_BATCH_SIZE = 1000;
+    private static final String[] SEED_KINDS = {"Wireless", "Wired", "Ergonomic", "Gaming", "Compact"};
+    private static final String[] SEED_PRODUCTS = {"Mouse", "Keyboard", "Headset", "Monitor", "Cable", "Charger"};
+
+    private final Path directory;
+    private final int samples;
+    private final int catalogSize;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final Map<String, List<Budget>> budgetsByPact = new HashMap<>();
+    private final Set<Budget> unchecked = new LinkedHashSet<>();
+
+    private ConfigurableApplicationContext seededProvider;
+    private String seededUrl;
+    private String seededProductId;
+
+    public LatencyBudgetVerifier(Path directory, int samples, int catalogSize) {
+        this.directory = directory;
+        this.samples = samples;
+        this.catalogSize = catalogSize;
+    }
+
+    /**
+     * Records that the interaction's budgets match an interaction. Called before the interaction is verified, so
+     * that a failed verification is not reported again as budgets without an interaction.
+     */
+    public void match(PactVerificationContext context) {
+        unchecked.removeAll(matchingBudgets(context));
+    }
+
+    public void verify(PactVerificationContext context) {
+        if (samples < 1) {
+            return;
+        }
+
+        for (Budget budget : matchingBudgets(context)) {
+            check(context.getInteraction(), budget);
+        }
+    }
+
+    public void assertAllChecked() {
+        if (!unchecked.isEmpty()) {
+            throw new AssertionError("No interaction matches the latency budgets for " + unchecked);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (seededProvider != null) {
+            seededProvider.close();
+            seededProvider = null;
+        }
+    }
+
+    private List<Budget> matchingBudgets(PactVerificationContext context) {
+        List<Budget> matching = new ArrayList<>();
+        for (Budget budget : budgets(context.getConsumer().getName(), context.getProviderInfo().getName())) {
+            if (budget.interaction.equals(context.getInteraction().getDescription())) {
+                matching.add(budget);
+            }
+        }
+
+        return matching;
+    }
+
+    private void check(Interaction interaction, Budget budget) {
+        startSeededProvider();
+        HttpRequest request = PactRequests.needsExistingProduct(interaction)
+                ? PactRequests.toHttpRequest(seededUrl, interaction.asSynchronousRequestResponse().getRequest(),
+                PactRequests.replacingProductIds(() -> seededProductId))
+                : PactRequests.toHttpRequest(seededUrl, interaction.asSynchronousRequestResponse().getRequest());
+        int expectedStatus = interaction.asSynchronousRequestResponse().getResponse().getStatus();
+
+        for (int i = 0; i < samples; i++) {
+            send(request, expectedStatus);
+        }
+
+        long[] latencies = new long[samples];
+        for (int i = 0; i < samples; i++) {
+            long started = System.nanoTime();
+            send(request, expectedStatus);
+            latencies[i] = System.nanoTime() - started;
+        }
+        Arrays.sort(latencies);
+
+        double millis = latencies[Math.max(0, (int) Math.ceil(budget.percentile / 100.0 * samples) - 1)] / 1e6;
+        if (millis > budget.millis) {
+            throw new AssertionError(String.format("%s: p%s was %.3f ms, over the budget of %d ms (%d requests)",
+                    budget, formatPercentile(budget.percentile), millis, budget.millis, samples));
+        }
+    }
+
+    private void startSeededProvider() {
+        if (seededProvider != null) {
+            return;
+        }
+
+        seededProvider = new SpringApplicationBuilder(MainProductsProvider.class)
+                .properties("server.port=0")
+                .run();
+        seededUrl = "http://localhost:" + ((ServletWebServerApplicationContext) seededProvider).getWebServer().getPort();
+
+        ProductsService productsService = seededProvider.getBean(ProductsService.class);
+        for (int first = 0; first < catalogSize; first += SEED_BATCH_SIZE) {
+            List<CreateProduct> batch = new ArrayList<>();
+            for (int i = first; i < Math.min(catalogSize, first + SEED_BATCH_SIZE); i++) {
+                String name = SEED_KINDS[i % SEED_KINDS.length] + " " + SEED_PRODUCTS[i / SEED_KINDS.length % SEED_PRODUCTS.length] + " " + i;
+                batch.add(new CreateProduct(name, name + " for everyday use", i % 100 + 0.99));
+            }
+            productsService.createProducts(batch);
+        }
+
+        List<ProviderProductResponse> products = productsService.getProducts();
+        seededProductId = products.get(products.size() / 2).getId().toString();
+    }
+
+    private void send(HttpRequest request, int expectedStatus) {
+        HttpResponse<Void> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+
+        if (response.statusCode() != expectedStatus) {
+            throw new AssertionError("Replaying the interaction returned " + response.statusCode() + " instead of " + expectedStatus);
+        }
+    }
+
+    private List<Budget> budgets(String consumer, String provider) {
+        return budgetsByPact.computeIfAbsent(consumer + "-" + provider, name -> {
+            Path file = directory.resolve(name + ".json");
+            List<Budget> budgets = new ArrayList<>();
+            if (!Files.exists(file)) {
+                return budgets;
+            }
+
+            try {
+                for (JsonNode budget : objectMapper.readTree(file.toFile()).path("budgets")) {
+                    budgets.add(new Budget(consumer, budget.path("interaction").asText(),
+                            budget.path("percentile").asDouble(95), budget.path("millis").asLong()));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            unchecked.addAll(budgets);
+            return budgets;
+        });
+    }
+
+    private static String formatPercentile(double percentile) {
+        return percentile == Math.rint(percentile) ? Long.toString((long) percentile) : Double.toString(percentile);
+    }
+
+    private static final class Budget {
+        private final String consumer;
+        private final String interaction;
+        private final double percentile;
+        private final long millis;
+
+        private Budget(String consumer, String interaction, double percentile, long millis) {
+            this.consumer = consumer;
+            this.interaction = interaction;
+            this.percentile = percentile;
+            this.millis = millis;
+        }
+
+        @Override
+        public String toString() {
+            return "'" + interaction + "' of " + consumer;
+        }
+    }
+}
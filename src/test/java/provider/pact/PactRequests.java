@@ -0,0 +1,93 @@
+package provider.pact;
+
+import au.com.dius.pact.core.model.IRequest;
+import au.com.dius.pact.core.model.Interaction;
+import au.com.dius.pact.core.model.ProviderState;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+
+/**
+ * Turns the request of a pact interaction into a request for the JDK {@link java.net.http.HttpClient}, for
+ * replaying interactions outside of pact's own verification.
+ */
+public final class PactRequests {
+    private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host", "upgrade");
+    private static final String CONTENT_TYPE_HEADER = "content-type";
+    private static final Set<String> EXISTING_PRODUCT_STATES = Set.of("one product exists");
+    private static final Pattern UUID_PATTERN = Pattern.compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+
+    private PactRequests() {
+    }
+
+    /**
+     * Whether the interaction's example product id must be replaced by the id of a product the provider has, when
+     * it is replayed outside of its provider state.
+     */
+    public static boolean needsExistingProduct(Interaction interaction) {
+        return interaction.getProviderStates().stream()
+                .map(ProviderState::getName)
+                .anyMatch(EXISTING_PRODUCT_STATES::contains);
+    }
+
+    /**
+     * A rewrite for {@link #toHttpRequest(String, IRequest, UnaryOperator)} that replaces every UUID with an id
+     * from {@code productIds}.
+     */
+    public static UnaryOperator<String> replacingProductIds(Supplier<String> productIds) {
+        return value -> UUID_PATTERN.matcher(value).replaceAll(match -> productIds.get());
+    }
+
+    public static HttpRequest toHttpRequest(String baseUrl, IRequest request) {
+        return toHttpRequest(baseUrl, request, UnaryOperator.identity());
+    }
+
+    /**
+     * Builds the request with {@code rewrite} applied to its path, query values and header values, e.g. to
+     * replace the example ids of the pact with ids the provider knows.
+     */
+    public static HttpRequest toHttpRequest(String baseUrl, IRequest request, UnaryOperator<String> rewrite) {
+        StringBuilder uri = new StringBuilder(baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl)
+                .append(rewrite.apply(request.getPath()));
+        char separator = '?';
+        for (Map.Entry<String, List<String>> parameter : request.getQuery().entrySet()) {
+            for (String value : parameter.getValue()) {
+                uri.append(separator).append(URLEncoder.encode(parameter.getKey(), StandardCharsets.UTF_8))
+                        .append('=').append(URLEncoder.encode(rewrite.apply(value), StandardCharsets.UTF_8));
+                separator = '&';
+            }
+        }
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(uri.toString()))
+                .method(request.getMethod(), request.getBody().isPresent()
+                        ? HttpRequest.BodyPublishers.ofByteArray(request.getBody().unwrap())
+                        : HttpRequest.BodyPublishers.noBody());
+        boolean hasContentType = false;
+        for (Map.Entry<String, List<String>> header : request.getHeaders().entrySet()) {
+            String name = header.getKey().toLowerCase(Locale.ROOT);
+            if (!RESTRICTED_HEADERS.contains(name)) {
+                hasContentType |= name.equals(CONTENT_TYPE_HEADER);
+                for (String value : header.getValue()) {
+                    builder.header(header.getKey(), rewrite.apply(value));
+                }
+            }
+        }
+
+        // Pact sends the content type it recorded for the body when the interaction does not name one
+        String bodyContentType = request.getBody().isPresent() ? request.getBody().getContentType().asString() : null;
+        if (!hasContentType && bodyContentType != null) {
+            builder.header("Content-Type", bodyContentType);
+        }
+
+        return builder.build();
+    }
+}
@@ -1,11 +1,11 @@
 package provider.pact;
 
-import au.com.dius.pact.provider.junit5.HttpTestTarget;
 import au.com.dius.pact.provider.junit5.PactVerificationContext;
 import au.com.dius.pact.provider.junit5.PactVerificationInvocationContextProvider;
 import au.com.dius.pact.provider.junitsupport.Provider;
 import au.com.dius.pact.provider.junitsupport.State;
 import au.com.dius.pact.provider.junitsupport.loader.PactFolder;
+import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.TestTemplate;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,20 +14,27 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import provider.MainProductsProvider;
 import provider.services.ProductsService;
+import provider.services.TextSearchResult;
 import provider.contracts.ProviderProductResponse;
 
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.when;
 
 @PactFolder("pacts")
 @Provider("Products Application")
 @SpringBootTest(classes = MainProductsProvider.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 public class ProductsControllerPactTests {
+    private static final LatencyBudgetVerifier LATENCY_BUDGETS = new LatencyBudgetVerifier(Path.of("pacts", "budgets"),
+            Integer.getInteger("pact.latency.samples", 0), Integer.getInteger("pact.latency.catalog-size", 10_000));
+
     @MockBean
     private ProductsService productsService;
 
@@ -36,13 +43,25 @@ public class ProductsControllerPactTests {
 
     @BeforeEach
     void setupTestTarget(PactVerificationContext context) {
-        context.setTarget(new HttpTestTarget("localhost", serverPort));
+        context.setTarget(new BinaryHttpTestTarget("localhost", serverPort));
     }
 
     @TestTemplate
     @ExtendWith(PactVerificationInvocationContextProvider.class)
     void pactVerificationTestTemplate(PactVerificationContext context) {
+        LATENCY_BUDGETS.match(context);
         context.verifyInteraction();
+        ((BinaryHttpTestTarget) context.getTarget()).verifyCborBody(context.getInteraction());
+        LATENCY_BUDGETS.verify(context);
+    }
+
+    @AfterAll
+    static void checkAllLatencyBudgets() {
+        try {
+            LATENCY_BUDGETS.assertAllChecked();
+        } finally {
+            LATENCY_BUDGETS.close();
+        }
     }
 
     @State("existing products")
@@ -52,9 +71,36 @@ public class ProductsControllerPactTests {
         when(productsService.getProducts()).thenReturn(List.of(product));
     }
 
+    @State("one existing product in catalog fedcba98-7654-3210-fedc-ba9876543210")
+    void oneExistingProductInCatalog() {
+        ProviderProductResponse product = new ProviderProductResponse(UUID.randomUUID(), "Product 1", "Product 1 description", 20, "store 1", 1);
+
+        when(productsService.getCatalogId()).thenReturn(UUID.fromString("fedcba98-7654-3210-fedc-ba9876543210"));
+        when(productsService.getProducts()).thenReturn(List.of(product));
+    }
+
+    @State("two existing products")
+    void twoExistingProducts() {
+        ProviderProductResponse first = new ProviderProductResponse(UUID.randomUUID(), "Product 1", "Product 1 description", 20, "store 1", 1);
+        ProviderProductResponse second = new ProviderProductResponse(UUID.randomUUID(), "Product 2", "Product 2 description", 30, "store 1", 1);
+
+        when(productsService.getProducts(0, 2)).thenReturn(List.of(first, second));
+        when(productsService.getProducts(1, 2)).thenReturn(List.of(second));
+    }
+
+    @State("products changed since sequence 1")
+    void productsChangedSinceSequence() {
+        ProviderProductResponse first = new ProviderProductResponse(UUID.randomUUID(), "Product 1", "Product 1 description", 20, "store 1", 1);
+        ProviderProductResponse second = new ProviderProductResponse(UUID.randomUUID(), "Product 2", "Product 2 description", 30, "store 1", 1);
+
+        when(productsService.getProducts()).thenReturn(List.of(first, second));
+        when(productsService.getProducts(1, 1)).thenReturn(List.of(second));
+        when(productsService.getCatalogId()).thenReturn(first.getId());
+    }
+
     @State("one product exists")
     void oneProductExists() {
-        ProviderProductResponse product = new ProviderProductResponse(UUID.randomUUID(), "Product 2", "Product 2 description", 44, "store 2", 2);
+        ProviderProductResponse product = new ProviderProductResponse(UUID.fromString("01234567-0123-0123-0123-0123456789ab"), "Product 2", "Product 2 description", 44, "store 2", 2);
 
         when(productsService.getProduct(any())).thenReturn(Optional.of(product));
     }
@@ -64,6 +110,13 @@ public class ProductsControllerPactTests {
         when(productsService.getProduct(any())).thenReturn(Optional.empty());
     }
 
+    @State("one of two looked up products exists")
+    void oneOfTwoLookedUpProductsExists() {
+        ProviderProductResponse product = new ProviderProductResponse(UUID.fromString("01234567-0123-0123-0123-0123456789ab"), "Product 1", "Product 1 description", 11, "store 1", 1);
+
+        when(productsService.getProductsByIds(any())).thenReturn(List.of(product));
+    }
+
     @State("one create product")
     void oneCreateProduct() {
         ProviderProductResponse product = new ProviderProductResponse(UUID.randomUUID(), "Product 1", "Product 1 description", 11, "store 1", 1);
@@ -71,6 +124,14 @@ public class ProductsControllerPactTests {
         when(productsService.createProduct(any())).thenReturn(product);
     }
 
+    @State("batch create products")
+    void batchCreateProducts() {
+        ProviderProductResponse first = new ProviderProductResponse(UUID.randomUUID(), "Product 1", "Product 1 description", 11, "store 1", 1);
+        ProviderProductResponse second = new ProviderProductResponse(UUID.randomUUID(), "Product 2", "Product 2 description", 12, "store 1", 1);
+
+        when(productsService.createProducts(any())).thenReturn(List.of(first, second));
+    }
+
     @State("get product by index existing")
     void getProductByIndexExists() {
         ProviderProductResponse product = new ProviderProductResponse(UUID.randomUUID(), "Product 1", "Product 1 description", 11, "store 1", 1);
@@ -82,4 +143,23 @@ public class ProductsControllerPactTests {
     void getProductByIndexNotExists() {
         when(productsService.getProductByIndex(anyInt())).thenThrow(new IndexOutOfBoundsException());
     }
+
+    @State("products in store 55 priced between 1 and 2")
+    void productsInStoreWithinPriceRange() {
+        ProviderProductResponse product = new ProviderProductResponse(UUID.randomUUID(), "Product 1", "Product 1 description", 1.5, "store 55", 55);
+
+        when(productsService.searchProducts(eq(55), eq(1.0), eq(2.0), eq(10))).thenReturn(List.of(product));
+    }
+
+    @State("no products in store 99")
+    void noProductsInStore() {
+        when(productsService.searchProducts(eq(99), isNull(), isNull(), anyInt())).thenReturn(List.of());
+    }
+
+    @State("products matching the text query")
+    void productsMatchingTextQuery() {
+        ProviderProductResponse product = new ProviderProductResponse(UUID.randomUUID(), "Wireless mouse", "A mouse without a cable", 20, "store 1", 1);
+
+        when(productsService.searchProductsByText(eq("wireless mou"), eq(5), any())).thenReturn(new TextSearchResult(List.of(product), false));
+    }
 }
@@ -0,0 +1,195 @@
+package provider.services;
+
+import org.junit.jupiter.api.Test;
+import provider.contracts.CreateProduct;
+import provider.contracts.ProviderProductResponse;
+import provider.store.ConcurrentProductStore;
+import provider.store.ProductLog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductsServiceImplTests {
+    private static final int SEEDED_PRODUCTS = 3;
+    private static final int WRITERS = 4;
+    private static final int PRODUCTS_PER_WRITER = 5_000;
+    private static final int READERS = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    private final ProductsServiceImpl productsService = new ProductsServiceImpl();
+
+    @Test
+    void testConcurrentReadsAndWritesStayConsistent() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + READERS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ConcurrentLinkedQueue<ProviderProductResponse> created = new ConcurrentLinkedQueue<>();
+        UUID seededId = productsService.getProductByIndex(0).getId();
+
+        List<Future<?>> writers = new ArrayList<>();
+        for (int writer = 0; writer < WRITERS; writer++) {
+            int writerId = writer;
+            writers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < PRODUCTS_PER_WRITER; i++) {
+                    created.add(productsService.createProduct(new CreateProduct("product " + writerId + "-" + i, "description", i)));
+                }
+                return null;
+            }));
+        }
+
+        List<Future<?>> readers = new ArrayList<>();
+        for (int reader = 0; reader < READERS; reader++) {
+            readers.add(executor.submit(() -> {
+                start.await();
+                int lastSize = 0;
+                while (writing.get()) {
+                    List<ProviderProductResponse> products = productsService.getProducts();
+                    assertTrue(products.size() >= lastSize, "snapshots must never shrink");
+                    lastSize = products.size();
+
+                    for (ProviderProductResponse product : products) {
+                        assertNotNull(product);
+                    }
+
+                    int index = ThreadLocalRandom.current().nextInt(lastSize);
+                    ProviderProductResponse byIndex = productsService.getProductByIndex(index);
+                    assertEquals(products.get(index), byIndex);
+                    assertEquals(byIndex, productsService.getProduct(byIndex.getId()).orElseThrow());
+                    assertTrue(productsService.getProduct(seededId).isPresent());
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get(1, TimeUnit.MINUTES);
+        }
+        writing.set(false);
+        for (Future<?> reader : readers) {
+            reader.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        List<ProviderProductResponse> products = productsService.getProducts();
+        assertEquals(SEEDED_PRODUCTS + WRITERS * PRODUCTS_PER_WRITER, products.size());
+        assertEquals(WRITERS * PRODUCTS_PER_WRITER, created.size());
+
+        Set<UUID> ids = new HashSet<>();
+        for (int i = 0; i < products.size(); i++) {
+            ProviderProductResponse product = products.get(i);
+            assertTrue(ids.add(product.getId()), "duplicate product at index " + i);
+            assertSame(product, productsService.getProductByIndex(i));
+        }
+
+        for (ProviderProductResponse product : created) {
+            assertSame(product, productsService.getProduct(product.getId()).orElseThrow());
+        }
+    }
+
+    @Test
+    void testSnapshotIsNotAffectedByLaterWrites() {
+        List<ProviderProductResponse> snapshot = productsService.getProducts();
+
+        productsService.createProduct(new CreateProduct("product", "description", 1));
+
+        assertEquals(SEEDED_PRODUCTS, snapshot.size());
+        assertEquals(SEEDED_PRODUCTS + 1, productsService.getProducts().size());
+        assertThrows(IndexOutOfBoundsException.class, () -> snapshot.get(SEEDED_PRODUCTS));
+    }
+
+    @Test
+    void testGetProductByIndexOutOfRange() {
+        assertThrows(IndexOutOfBoundsException.class, () -> productsService.getProductByIndex(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> productsService.getProductByIndex(SEEDED_PRODUCTS));
+    }
+
+    @Test
+    void testSearchByStoreAndPriceRange() {
+        ProviderProductResponse cheap = productsService.createProduct(new CreateProduct("cheap", "description", 0.5));
+        ProviderProductResponse expensive = productsService.createProduct(new CreateProduct("expensive", "description", 2.5));
+
+        assertEquals(List.of(productsService.getProductByIndex(1)), productsService.searchProducts(66, null, null, 10));
+        assertEquals(List.of(cheap, expensive), productsService.searchProducts(0, null, null, 10));
+        assertEquals(List.of(expensive), productsService.searchProducts(0, 1.0, null, 10));
+        assertEquals(List.of(productsService.getProductByIndex(1), expensive, productsService.getProductByIndex(2)),
+                productsService.searchProducts(null, 2.0, 3.0, 10));
+        assertEquals(List.of(cheap), productsService.searchProducts(null, null, 1.0, 1));
+        assertTrue(productsService.searchProducts(99, null, null, 10).isEmpty());
+    }
+
+    @Test
+    void testTextSearchRanksNameMatchesFirstAndMatchesLastTermAsPrefix() {
+        ProviderProductResponse inDescription = productsService.createProduct(new CreateProduct("Cable", "Works with any wireless mouse", 1));
+        ProviderProductResponse inName = productsService.createProduct(new CreateProduct("Wireless Mouse", "Ergonomic", 20));
+        productsService.createProduct(new CreateProduct("Wired mouse", "Ergonomic", 10));
+
+        TextSearchResult result = productsService.searchProductsByText("wireless mou", 10, Duration.ofSeconds(1));
+        assertFalse(result.isPartial());
+        assertEquals(List.of(inName, inDescription), result.getProducts());
+
+        assertEquals(3, productsService.searchProductsByText("mouse", 10, Duration.ofSeconds(1)).getProducts().size());
+        assertEquals(1, productsService.searchProductsByText("mouse", 1, Duration.ofSeconds(1)).getProducts().size());
+        assertTrue(productsService.searchProductsByText("wireless keyboard", 10, Duration.ofSeconds(1)).getProducts().isEmpty());
+        assertTrue(productsService.searchProductsByText("mou ", 10, Duration.ofSeconds(1)).getProducts().isEmpty());
+    }
+
+    @Test
+    void testProductsAreNotPublishedWhenTheirAppendFails() {
+        FailingProductLog productLog = new FailingProductLog();
+        ProductsServiceImpl loggedService = new ProductsServiceImpl(new ConcurrentProductStore(), Optional.of(productLog));
+
+        productLog.failing = true;
+        assertThrows(UncheckedIOException.class, () -> loggedService.createProduct(new CreateProduct("lost", "description", 1)));
+        assertEquals(SEEDED_PRODUCTS, loggedService.getProducts().size());
+        assertTrue(loggedService.searchProductsByText("lost", 10, Duration.ofSeconds(1)).getProducts().isEmpty());
+
+        productLog.failing = false;
+        assertThrows(IllegalStateException.class, () -> loggedService.createProduct(new CreateProduct("later", "description", 1)));
+        assertEquals(SEEDED_PRODUCTS, loggedService.getProducts().size());
+    }
+
+    private static final class FailingProductLog extends ProductLog {
+        private volatile boolean failing;
+
+        private FailingProductLog() {
+            super(Path.of("unused"), 1, 1, Duration.ZERO);
+        }
+
+        @Override
+        public List<ProviderProductResponse> recover() {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public CompletableFuture<Void> append(long firstPosition, List<ProviderProductResponse> products) {
+            return failing
+                    ? CompletableFuture.failedFuture(new UncheckedIOException(new IOException("Disk full")))
+                    : CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public void scheduleSnapshots(Supplier<List<ProviderProductResponse>> source) {
+        }
+    }
+}
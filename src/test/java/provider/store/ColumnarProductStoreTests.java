@@ -0,0 +1,88 @@
+package provider.store;
+
+import org.junit.jupiter.api.Test;
+import provider.contracts.ProviderProductResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnarProductStoreTests {
+    private final ColumnarProductStore store = new ColumnarProductStore();
+
+    @Test
+    void testReadsBackEveryField() {
+        ProviderProductResponse full = new ProviderProductResponse(UUID.randomUUID(), "na\u00efve product", "d\u00e9scription", 12.5, "store 1", 55);
+        ProviderProductResponse sparse = new ProviderProductResponse(UUID.randomUUID(), null, null, 0, null, 0);
+        ProviderProductResponse large = new ProviderProductResponse(UUID.randomUUID(), "large", "x".repeat(5 << 20), 1, "store 1", 55);
+
+        store.addAll(List.of(full, sparse, large));
+
+        assertEquals(List.of(full, sparse, large), store.snapshot());
+        assertEquals(sparse, store.get(sparse.getId()));
+        assertEquals(large, store.get(2));
+        assertNull(store.get(UUID.randomUUID()));
+        assertThrows(IndexOutOfBoundsException.class, () -> store.get(3));
+        assertEquals(1, store.version());
+    }
+
+    @Test
+    void testRejectsDuplicateIds() {
+        ProviderProductResponse product = new ProviderProductResponse(UUID.randomUUID(), "product", "description", 1, null, 0);
+        store.add(product);
+
+        assertThrows(IllegalArgumentException.class, () -> store.add(product));
+        ProviderProductResponse other = new ProviderProductResponse(UUID.randomUUID(), "other", "description", 1, null, 0);
+        assertThrows(IllegalArgumentException.class, () -> store.addAll(List.of(other, other)));
+        assertEquals(1, store.size());
+        assertNull(store.get(other.getId()));
+    }
+
+    @Test
+    void testConcurrentReadersSeeConsistentPrefixes() throws Exception {
+        int products = 50_000;
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        AtomicBoolean writing = new AtomicBoolean(true);
+
+        List<Future<?>> readers = new ArrayList<>();
+        for (int reader = 0; reader < 4; reader++) {
+            readers.add(executor.submit(() -> {
+                while (writing.get()) {
+                    List<ProviderProductResponse> snapshot = store.snapshot();
+                    if (snapshot.isEmpty()) {
+                        continue;
+                    }
+
+                    int index = ThreadLocalRandom.current().nextInt(snapshot.size());
+                    ProviderProductResponse product = snapshot.get(index);
+                    assertEquals("product" + index, product.getName());
+                    assertEquals(product, store.get(product.getId()));
+                }
+                return null;
+            }));
+        }
+
+        for (int i = 0; i < products; i++) {
+            store.add(new ProviderProductResponse(UUID.randomUUID(), "product" + i, "description", i, "store " + i % 10, i % 10));
+        }
+        writing.set(false);
+        for (Future<?> reader : readers) {
+            reader.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        assertEquals(products, store.size());
+        for (int i = 0; i < products; i++) {
+            ProviderProductResponse product = store.get(i);
+            assertEquals(product, store.get(product.getId()));
+        }
+    }
+}
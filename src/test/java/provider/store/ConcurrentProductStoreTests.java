@@ -0,0 +1,25 @@
+package provider.store;
+
+import org.junit.jupiter.api.Test;
+import provider.contracts.ProviderProductResponse;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentProductStoreTests {
+    private final ConcurrentProductStore store = new ConcurrentProductStore();
+
+    @Test
+    void testRejectsDuplicateIds() {
+        ProviderProductResponse product = new ProviderProductResponse(UUID.randomUUID(), "product", "description", 1, null, 0);
+        store.add(product);
+
+        assertThrows(IllegalArgumentException.class, () -> store.add(product));
+        ProviderProductResponse other = new ProviderProductResponse(UUID.randomUUID(), "other", "description", 1, null, 0);
+        assertThrows(IllegalArgumentException.class, () -> store.addAll(List.of(other, other)));
+        assertEquals(1, store.size());
+        assertNull(store.get(other.getId()));
+    }
+}
@@ -0,0 +1,121 @@
+package provider.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import provider.contracts.ProviderProductResponse;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ProductLogTests {
+    @TempDir
+    Path directory;
+
+    private ProductLog open() {
+        return new ProductLog(directory, 16, 1024, Duration.ZERO);
+    }
+
+    private static List<ProviderProductResponse> products(int count) {
+        List<ProviderProductResponse> products = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            products.add(new ProviderProductResponse(UUID.randomUUID(), "product" + i, i % 2 == 0 ? null : "description" + i, i, null, i));
+        }
+
+        return products;
+    }
+
+    @Test
+    void testRecoversAppendedProducts() throws IOException {
+        List<ProviderProductResponse> products = products(100);
+
+        try (ProductLog log = open()) {
+            assertTrue(log.recover().isEmpty());
+
+            List<CompletableFuture<Void>> appends = new ArrayList<>();
+            for (int i = 0; i < products.size(); i++) {
+                appends.add(log.append(i, List.of(products.get(i))));
+            }
+            appends.forEach(CompletableFuture::join);
+        }
+
+        try (ProductLog log = open()) {
+            assertEquals(products, log.recover());
+        }
+    }
+
+    @Test
+    void testRecoversFromSnapshotAndLogTail() throws IOException {
+        List<ProviderProductResponse> products = products(50);
+
+        try (ProductLog log = open()) {
+            log.recover();
+            log.append(0, products.subList(0, 30)).join();
+            log.snapshot(products.subList(0, 30));
+            log.append(30, products.subList(30, 50)).join();
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.anyMatch(path -> path.getFileName().toString().startsWith("snapshot-")));
+        }
+
+        try (ProductLog log = open()) {
+            assertEquals(products, log.recover());
+        }
+    }
+
+    @Test
+    void testTruncatesTornRecordAndKeepsAppending() throws IOException {
+        List<ProviderProductResponse> products = products(10);
+
+        try (ProductLog log = open()) {
+            log.recover();
+            log.append(0, products).join();
+        }
+
+        Path lastSegment;
+        try (Stream<Path> files = Files.list(directory)) {
+            lastSegment = files.filter(path -> path.getFileName().toString().startsWith("segment-"))
+                    .sorted()
+                    .collect(Collectors.toList())
+                    .get(0);
+        }
+        try (FileChannel channel = FileChannel.open(lastSegment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        List<ProviderProductResponse> extra = products(1);
+        try (ProductLog log = open()) {
+            assertEquals(products.subList(0, 9), log.recover());
+            log.append(9, extra).join();
+        }
+
+        List<ProviderProductResponse> expected = new ArrayList<>(products.subList(0, 9));
+        expected.addAll(extra);
+        try (ProductLog log = open()) {
+            assertEquals(expected, log.recover());
+        }
+    }
+
+    @Test
+    void testRejectsOutOfOrderAppends() throws IOException {
+        try (ProductLog log = open()) {
+            log.recover();
+
+            assertThrows(IllegalArgumentException.class, () -> log.append(1, products(1)));
+        }
+    }
+}